@@ -56,6 +56,7 @@ export class EcsStack extends Stack {
             }),
             environment: {
                 'SPRING_PROFILES_ACTIVE': 'auth',
+                'POLLING_QUEUE_URL': props.pollingQueue.queueUrl,
                 'SPRING_DATASOURCE_URL': Fn.join("", [
                     "jdbc:mysql://",
                     props.authorizationDBInstance.dbInstanceEndpointAddress,
@@ -64,10 +65,9 @@ export class EcsStack extends Stack {
                 'SPRING_DATASOURCE_USERNAME': process.env.DB_USERNAME!,
                 'SPRING_DATASOURCE_PASSWORD': process.env.DB_PASSWORD!,
                 'SPRING_JPA_DATABASE_PLATFORM': 'org.hibernate.dialect.MySQL8Dialect',
-                'SPRING_JPA_HIBERNATE_DDL_AUTO': 'update',
+                'SPRING_JPA_HIBERNATE_DDL_AUTO': 'validate',
                 'SPRING_JPA_SHOW_SQL': 'false',
                 'SPRING_JPA_PROPERTIES_HIBERNATE_FORMAT_SQL': 'true',
-                'SENDER_EMAIL': process.env.SENDER_EMAIL!,
                 'SERVER_PORT': '8080'
             }
         });
@@ -110,9 +110,10 @@ export class EcsStack extends Stack {
                 'SPRING_DATASOURCE_USERNAME': process.env.DB_USERNAME!,
                 'SPRING_DATASOURCE_PASSWORD': process.env.DB_PASSWORD!,
                 'SPRING_JPA_DATABASE_PLATFORM': 'org.hibernate.dialect.MySQL8Dialect',
-                'SPRING_JPA_HIBERNATE_DDL_AUTO': 'update',
+                'SPRING_JPA_HIBERNATE_DDL_AUTO': 'validate',
                 'SPRING_JPA_SHOW_SQL': 'false',
                 'SPRING_JPA_PROPERTIES_HIBERNATE_FORMAT_SQL': 'true',
+                'SENDER_EMAIL': process.env.SENDER_EMAIL!,
                 'SERVER_PORT': '8081'
             },
         });
@@ -0,0 +1,63 @@
+package com.clinton.authorization_server.aop;
+
+import com.clinton.authorization_server.controller.AuthController;
+import com.clinton.authorization_server.model.Authorization;
+import com.clinton.authorization_server.model.Money;
+import com.clinton.authorization_server.service.AuthService;
+import com.clinton.authorization_server.service.AuthorizationLanes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a direct controller call with the same call through {@link LoggingAspect}. The service is a no-op and
+ * the benchmark logback config has no appenders, so the difference is what the aspect itself costs per call.
+ *
+ * @author Clinton Fernandes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingAspectBenchmark {
+
+    private AuthController controller;
+
+    private AuthController advisedController;
+
+    private Authorization authorization;
+
+    @Setup
+    public void setUp() {
+        AuthService authService = new AuthService(null, null, null, null, null, null) {
+            @Override
+            public void authorizePaymentTransaction(Authorization authorization) {
+            }
+        };
+        controller = new AuthController(authService, null, null, new AuthorizationLanes(authService, new SimpleMeterRegistry(), 1, 1));
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(controller);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new LoggingAspect());
+        advisedController = proxyFactory.getProxy();
+
+        authorization = new Authorization();
+        authorization.setSenderAccountId(1);
+        authorization.setReceiverAccountId(2);
+        authorization.setAmount(Money.of("40.25"));
+    }
+
+    @Benchmark
+    public ResponseEntity<String> direct() {
+        return controller.authorizeTransaction(null, authorization);
+    }
+
+    @Benchmark
+    public ResponseEntity<String> advised() {
+        return advisedController.authorizeTransaction(null, authorization);
+    }
+}
@@ -0,0 +1,54 @@
+package com.clinton.authorization_server.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads request bodies the way the controllers receive them.
+ *
+ * @author Clinton Fernandes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorizationDeserializationBenchmark {
+
+    private static final String AUTHORIZATION = "{\"senderAccountId\":1,\"receiverAccountId\":2,\"amount\":40.25}";
+
+    private ObjectReader authorizationReader;
+
+    private ObjectReader batchReader;
+
+    private String batch;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        authorizationReader = objectMapper.readerFor(Authorization.class);
+        batchReader = objectMapper.readerFor(AuthorizationBatch.class);
+        StringJoiner authorizations = new StringJoiner(",", "{\"authorizations\":[", "]}");
+        for (int i = 0; i < 100; i++) {
+            authorizations.add(AUTHORIZATION);
+        }
+        batch = authorizations.toString();
+    }
+
+    @Benchmark
+    public Authorization readAuthorization() throws Exception {
+        return authorizationReader.readValue(AUTHORIZATION);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(100)
+    public AuthorizationBatch readBatchOfHundred() throws Exception {
+        return batchReader.readValue(batch);
+    }
+}
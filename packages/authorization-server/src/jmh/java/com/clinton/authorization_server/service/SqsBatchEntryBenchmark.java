@@ -0,0 +1,35 @@
+package com.clinton.authorization_server.service;
+
+import com.clinton.authorization_server.model.OutboxMessage;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * @author Clinton Fernandes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqsBatchEntryBenchmark {
+
+    private List<OutboxMessage> messages;
+
+    @Setup
+    public void setUp() {
+        String payload = "{\"schemaVersion\":1,\"senderAccountId\":1,\"receiverAccountId\":2,\"amount\":40,\"timestamp\":\"2024-07-01T10:15:30\",\"sender\":{\"name\":\"sender\",\"email\":\"sender@test\"},\"receiver\":{\"name\":\"receiver\",\"email\":\"receiver@test\"}}";
+        messages = LongStream.rangeClosed(1_000_000, 1_000_009).mapToObj((id) -> new OutboxMessage(id, payload)).toList();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public List<SendMessageBatchRequestEntry> toBatchEntries() {
+        return SendMessageToSQS.toBatchEntries(SendMessageToSQS.toEnvelopes(messages, 0));
+    }
+}
@@ -16,36 +16,43 @@ public class ControllerAnnotations {
 
     @Target(ElementType.METHOD)
     @Retention(RetentionPolicy.RUNTIME)
-    @Operation(summary = "authorize payment", description = "authorizes a transaction between 2 parties")
-    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Successful Operation"), @ApiResponse(responseCode = "500", description = "Internal Server Error")})
+    @Operation(summary = "authorize payment", description = "authorizes a transaction between 2 parties; retries sending the same Idempotency-Key get the first attempt's answer")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Successful Operation"), @ApiResponse(responseCode = "422", description = "Idempotency-Key invalid or used for a different payment"), @ApiResponse(responseCode = "503", description = "Overloaded, retry after the Retry-After delay"), @ApiResponse(responseCode = "500", description = "Internal Server Error")})
     public @interface AuthorizeTransactionDoc {
     }
 
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    @Operation(summary = "authorize payments in batch", description = "authorizes up to 500 transactions in one database transaction and returns an outcome per item")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Successful Operation"), @ApiResponse(responseCode = "400", description = "Invalid Batch"), @ApiResponse(responseCode = "503", description = "Overloaded, retry after the Retry-After delay"), @ApiResponse(responseCode = "500", description = "Internal Server Error")})
+    public @interface AuthorizeTransactionBatchDoc {
+    }
+
     @Target(ElementType.METHOD)
     @Retention(RetentionPolicy.RUNTIME)
     @Operation(summary = "credit account", description = "credits money in an account")
-    @ApiResponses(value = {@ApiResponse(responseCode = "204", description = "Successful Operation"), @ApiResponse(responseCode = "500", description = "Internal Server Error")})
+    @ApiResponses(value = {@ApiResponse(responseCode = "204", description = "Successful Operation"), @ApiResponse(responseCode = "503", description = "Overloaded, retry after the Retry-After delay"), @ApiResponse(responseCode = "500", description = "Internal Server Error")})
     public @interface CreditAccountDoc {
     }
 
     @Target(ElementType.METHOD)
     @Retention(RetentionPolicy.RUNTIME)
     @Operation(summary = "debit account", description = "debits money from an account")
-    @ApiResponses(value = {@ApiResponse(responseCode = "204", description = "Successful Operation"), @ApiResponse(responseCode = "500", description = "Internal Server Error")})
+    @ApiResponses(value = {@ApiResponse(responseCode = "204", description = "Successful Operation"), @ApiResponse(responseCode = "503", description = "Overloaded, retry after the Retry-After delay"), @ApiResponse(responseCode = "500", description = "Internal Server Error")})
     public @interface DebitAccountDoc {
     }
 
     @Target(ElementType.METHOD)
     @Retention(RetentionPolicy.RUNTIME)
     @Operation(summary = "Account Creation", description = "Creates a new account with unique account ID")
-    @ApiResponses(value = {@ApiResponse(responseCode = "201", description = "Successful Creation"), @ApiResponse(responseCode = "500", description = "Internal Server Error")})
+    @ApiResponses(value = {@ApiResponse(responseCode = "201", description = "Successful Creation"), @ApiResponse(responseCode = "503", description = "Overloaded, retry after the Retry-After delay"), @ApiResponse(responseCode = "500", description = "Internal Server Error")})
     public @interface AddAccountDoc {
     }
 
     @Target(ElementType.METHOD)
     @Retention(RetentionPolicy.RUNTIME)
     @Operation(summary = "deletes an account", description = "deletes an account")
-    @ApiResponses(value = {@ApiResponse(responseCode = "204", description = "Successful Operation"), @ApiResponse(responseCode = "500", description = "Internal Server Error")})
+    @ApiResponses(value = {@ApiResponse(responseCode = "204", description = "Successful Operation"), @ApiResponse(responseCode = "503", description = "Overloaded, retry after the Retry-After delay"), @ApiResponse(responseCode = "500", description = "Internal Server Error")})
     public @interface DeleteAccountDoc {
     }
 }
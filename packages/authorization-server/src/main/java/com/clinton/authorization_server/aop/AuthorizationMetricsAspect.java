@@ -0,0 +1,93 @@
+package com.clinton.authorization_server.aop;
+
+import com.clinton.authorization_server.exceptions.AccountNotFoundException;
+import com.clinton.authorization_server.exceptions.BalanceNotSufficientException;
+import com.clinton.authorization_server.model.AuthorizationResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Times authorizations by outcome. It runs outside the transaction advice, so the timings include the commit and
+ * the batched inserts flushed with it.
+ *
+ * @author Clinton Fernandes
+ */
+@Aspect
+@Component
+@Profile("auth")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AuthorizationMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public AuthorizationMetricsAspect(MeterRegistry _meterRegistry) {
+        this.meterRegistry = _meterRegistry;
+    }
+
+    @Around("execution(* com.clinton.authorization_server.service.AuthService.authorizePaymentTransaction(..))")
+    public Object timeAuthorization(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "authorized";
+        try {
+            return joinPoint.proceed();
+        } catch (BalanceNotSufficientException exception) {
+            outcome = "declined";
+            throw exception;
+        } catch (AccountNotFoundException exception) {
+            outcome = "not_found";
+            throw exception;
+        } catch (Throwable throwable) {
+            outcome = "error";
+            throw throwable;
+        } finally {
+            sample.stop(this.authorizationTimer(outcome));
+        }
+    }
+
+    @Around("execution(* com.clinton.authorization_server.service.AuthService.authorizeIdempotently(..)) || execution(* com.clinton.authorization_server.service.AuthorizationLanes.authorize(..))")
+    public Object timeAuthorizationResult(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            AuthorizationResult result = (AuthorizationResult) joinPoint.proceed();
+            outcome = result.outcome().name().toLowerCase();
+            return result;
+        } finally {
+            sample.stop(this.authorizationTimer(outcome));
+        }
+    }
+
+    @Around("execution(* com.clinton.authorization_server.service.AuthService.authorizePaymentTransactions(..))")
+    public Object timeBatchAuthorization(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "completed";
+        try {
+            Object results = joinPoint.proceed();
+            for (Object result : (List<?>) results) {
+                Counter.builder("authorization.batch.items").tag("outcome", ((AuthorizationResult) result).outcome().name().toLowerCase()).register(meterRegistry).increment();
+            }
+            return results;
+        } catch (Throwable throwable) {
+            outcome = "error";
+            throw throwable;
+        } finally {
+            sample.stop(Timer.builder("authorization.batch.duration").tag("outcome", outcome).publishPercentileHistogram().register(meterRegistry));
+        }
+    }
+
+    private Timer authorizationTimer(String outcome) {
+        return Timer.builder("authorization.duration").description("Authorization latency including commit").tag("outcome", outcome).publishPercentileHistogram().register(meterRegistry);
+    }
+}
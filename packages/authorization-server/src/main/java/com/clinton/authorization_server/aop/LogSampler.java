@@ -0,0 +1,18 @@
+package com.clinton.authorization_server.aop;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks roughly one call in {@code rate} for per-message log lines, so their cost does not grow with throughput.
+ *
+ * @author Clinton Fernandes
+ */
+public final class LogSampler {
+
+    private LogSampler() {
+    }
+
+    public static boolean sampled(int rate) {
+        return rate <= 1 || ThreadLocalRandom.current().nextInt(rate) == 0;
+    }
+}
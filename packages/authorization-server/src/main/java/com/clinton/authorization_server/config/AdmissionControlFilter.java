@@ -0,0 +1,85 @@
+package com.clinton.authorization_server.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Sheds load on the authorize and account endpoints once more requests are in flight than {@link AdmissionLimit}
+ * allows. When MySQL slows down the limit backs off, so excess requests get an immediate 503 with
+ * {@code Retry-After} instead of piling up on Tomcat threads waiting for a Hikari connection.
+ *
+ * @author Clinton Fernandes
+ */
+@Component
+@Profile("auth")
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String REJECTED_BODY = "{\"error\":\"Server busy, please retry later\"}";
+
+    private final AdmissionLimit admissionLimit;
+
+    private final Counter accepted;
+
+    private final Counter rejected;
+
+    @Value("${admission.enabled}")
+    private boolean enabled;
+
+    @Value("${admission.retry-after-seconds}")
+    private int retryAfterSeconds;
+
+    @Autowired
+    public AdmissionControlFilter(MeterRegistry _meterRegistry, @Value("${admission.initial-limit}") int initialLimit, @Value("${admission.min-limit}") int minLimit, @Value("${admission.max-limit}") int maxLimit, @Value("${admission.latency-threshold-ms}") long latencyThresholdMs, @Value("${admission.backoff-ratio}") double backoffRatio) {
+        this.admissionLimit = new AdmissionLimit(initialLimit, minLimit, maxLimit, Duration.ofMillis(latencyThresholdMs).toNanos(), backoffRatio);
+        this.accepted = Counter.builder("admission.requests").tag("result", "accepted").register(_meterRegistry);
+        this.rejected = Counter.builder("admission.requests").tag("result", "rejected").register(_meterRegistry);
+        Gauge.builder("admission.limit", admissionLimit, AdmissionLimit::getLimit).description("How many requests the authorize and account endpoints admit at once").register(_meterRegistry);
+        Gauge.builder("admission.in.flight", admissionLimit, AdmissionLimit::getInFlight).register(_meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !enabled || !(path.startsWith("/api/v1/authorize") || path.startsWith("/api/v1/account"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (!admissionLimit.tryAcquire()) {
+            rejected.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(REJECTED_BODY);
+            return;
+        }
+        accepted.increment();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            admissionLimit.release(start, System.nanoTime(), failed);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.clinton.authorization_server.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD concurrency limit: while requests come back faster than the latency threshold and the limit is being used,
+ * it grows by one per limit's worth of requests; a request that is slow or fails cuts it by {@code backoffRatio}.
+ * Only requests admitted after the last cut can cut it again, so one slow spell backs off once rather than once
+ * per request that was already in flight. The update takes a {@link ReentrantLock} rather than a monitor, so virtual
+ * request threads do not pin their carrier while they wait for it.
+ *
+ * @author Clinton Fernandes
+ */
+class AdmissionLimit {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long latencyThresholdNanos;
+
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile double limit;
+
+    private long lastBackoffNanos;
+
+    AdmissionLimit(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos, double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.lastBackoffNanos = System.nanoTime();
+    }
+
+    boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > (int) limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Releases a request admitted at {@code startNanos} and feeds its latency into the limit.
+     */
+    void release(long startNanos, long endNanos, boolean failed) {
+        int concurrent = inFlight.getAndDecrement();
+        lock.lock();
+        try {
+            if (failed || endNanos - startNanos > latencyThresholdNanos) {
+                if (startNanos - lastBackoffNanos > 0) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastBackoffNanos = endNanos;
+                }
+            } else if (concurrent * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,88 @@
+package com.clinton.authorization_server.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Shared settings for the AWS clients: region, HTTP connection pool and timeouts from {@code aws.*}. Setting an
+ * endpoint points a client at a local SQS or SES stand-in for load testing; left empty, the regional endpoint is used.
+ *
+ * @author Clinton Fernandes
+ */
+@Component
+@Profile({"auth", "polling"})
+public class AwsClientFactory {
+
+    @Value("${aws.region}")
+    private String region;
+
+    @Value("${aws.http.max-connections}")
+    private int maxConnections;
+
+    @Value("${aws.http.connection-timeout-ms}")
+    private long connectionTimeoutMs;
+
+    @Value("${aws.http.connection-acquisition-timeout-ms}")
+    private long connectionAcquisitionTimeoutMs;
+
+    @Value("${aws.http.connection-ttl-ms}")
+    private long connectionTtlMs;
+
+    @Value("${aws.http.connection-max-idle-ms}")
+    private long connectionMaxIdleMs;
+
+    @Value("${aws.http.socket-timeout-ms}")
+    private long socketTimeoutMs;
+
+    @Value("${aws.http.tcp-keep-alive}")
+    private boolean tcpKeepAlive;
+
+    @Value("${aws.api-call-timeout-ms}")
+    private long apiCallTimeoutMs;
+
+    @Value("${aws.api-call-attempt-timeout-ms}")
+    private long apiCallAttemptTimeoutMs;
+
+    public NettyNioAsyncHttpClient.Builder asyncHttpClient() {
+        return NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConnections)
+                .connectionTimeout(Duration.ofMillis(connectionTimeoutMs))
+                .connectionAcquisitionTimeout(Duration.ofMillis(connectionAcquisitionTimeoutMs))
+                .connectionTimeToLive(Duration.ofMillis(connectionTtlMs))
+                .connectionMaxIdleTime(Duration.ofMillis(connectionMaxIdleMs))
+                .readTimeout(Duration.ofMillis(socketTimeoutMs))
+                .writeTimeout(Duration.ofMillis(socketTimeoutMs))
+                .tcpKeepAlive(tcpKeepAlive);
+    }
+
+    public ApacheHttpClient.Builder syncHttpClient() {
+        return ApacheHttpClient.builder()
+                .maxConnections(maxConnections)
+                .connectionTimeout(Duration.ofMillis(connectionTimeoutMs))
+                .connectionAcquisitionTimeout(Duration.ofMillis(connectionAcquisitionTimeoutMs))
+                .connectionTimeToLive(Duration.ofMillis(connectionTtlMs))
+                .connectionMaxIdleTime(Duration.ofMillis(connectionMaxIdleMs))
+                .socketTimeout(Duration.ofMillis(socketTimeoutMs))
+                .tcpKeepAlive(tcpKeepAlive);
+    }
+
+    /**
+     * Applies the region, call timeouts and, when {@code endpoint} is set, the endpoint override to a client builder.
+     */
+    public <B extends AwsClientBuilder<B, C>, C> B configure(B builder, String endpoint) {
+        builder.region(Region.of(region)).overrideConfiguration(ClientOverrideConfiguration.builder().apiCallTimeout(Duration.ofMillis(apiCallTimeoutMs)).apiCallAttemptTimeout(Duration.ofMillis(apiCallAttemptTimeoutMs)).build());
+        if (endpoint != null && !endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder;
+    }
+}
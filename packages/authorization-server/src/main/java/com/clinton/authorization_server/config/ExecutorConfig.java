@@ -0,0 +1,52 @@
+package com.clinton.authorization_server.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * @author Clinton Fernandes
+ */
+@Configuration
+@Profile("polling")
+public class ExecutorConfig {
+
+    /**
+     * Worker pool for SES calls, kept apart from the scheduler threads so a slow SES cannot stall the SQS relay.
+     * When the queue is full the dispatcher thread sends the email itself, which slows down claiming.
+     */
+    @Bean(name = "notificationExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor notificationExecutor(@Value("${notification.dispatcher.workers}") int workers, @Value("${notification.dispatcher.queue-capacity}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("notification-");
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * With {@code spring.threads.virtual.enabled} every email gets its own virtual thread. The concurrency limit
+     * keeps SES calls at {@code notification.dispatcher.workers}; once it is reached the dispatcher blocks on submit,
+     * which slows down claiming the same way the caller-runs policy does for the platform pool.
+     */
+    @Bean(name = "notificationExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualNotificationExecutor(@Value("${notification.dispatcher.workers}") int workers) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("notification-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(workers);
+        executor.setTaskTerminationTimeout(30000);
+        return executor;
+    }
+}
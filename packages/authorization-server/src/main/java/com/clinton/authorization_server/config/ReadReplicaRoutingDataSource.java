@@ -0,0 +1,30 @@
+package com.clinton.authorization_server.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections for {@code @Transactional(readOnly = true)} work to the read replica while
+ * {@link ReplicaLagMonitor} allows it, and everything else to the primary. It has to sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so the connection is only taken once
+ * the transaction has been marked read-only.
+ *
+ * @author Clinton Fernandes
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    public ReadReplicaRoutingDataSource(ReplicaLagMonitor _replicaLagMonitor) {
+        this.replicaLagMonitor = _replicaLagMonitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaLagMonitor.isUsable() ? Route.REPLICA : Route.PRIMARY;
+    }
+}
@@ -0,0 +1,75 @@
+package com.clinton.authorization_server.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+
+/**
+ * Decides whether the read replica may serve reads. The replica is usable while it answers and its replication lag
+ * is within {@code spring.datasource.replica.max-lag-ms}; until the first check succeeds, and whenever replication is
+ * stopped or the replica is unreachable, reads go to the primary. A database that is not replicating at all counts
+ * as lag-free, which is what a local setup with two independent databases looks like.
+ *
+ * @author Clinton Fernandes
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final DataSource replicaDataSource;
+
+    private final long maxLagMs;
+
+    private volatile boolean usable;
+
+    private volatile long lagMs = -1;
+
+    public ReplicaLagMonitor(DataSource _replicaDataSource, MeterRegistry _meterRegistry, long maxLagMs) {
+        this.replicaDataSource = _replicaDataSource;
+        this.maxLagMs = maxLagMs;
+        Gauge.builder("datasource.replica.lag", this, (monitor) -> monitor.lagMs).description("Replication lag of the read replica, -1 when unknown").baseUnit("milliseconds").register(_meterRegistry);
+        Gauge.builder("datasource.replica.usable", this, (monitor) -> monitor.usable ? 1 : 0).description("Whether reads are routed to the read replica").register(_meterRegistry);
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.lag-check-ms}")
+    public void check() {
+        boolean wasUsable = usable;
+        try (Connection connection = replicaDataSource.getConnection(); Statement statement = connection.createStatement(); ResultSet status = statement.executeQuery("SHOW REPLICA STATUS")) {
+            lagMs = status.next() ? toLagMs(status) : 0;
+        } catch (Exception exception) {
+            LOG.debug("Replica check failed: {}", exception.getMessage());
+            lagMs = -1;
+        }
+        usable = lagMs >= 0 && lagMs <= maxLagMs;
+        if (wasUsable != usable) {
+            LOG.warn("Read replica {} (lag {} ms)", usable ? "in use" : "out of use, reading from the primary", lagMs);
+        }
+    }
+
+    /**
+     * MySQL reports {@code Seconds_Behind_Source}, MariaDB {@code Seconds_Behind_Master}; either is null while
+     * replication is stopped.
+     */
+    private static long toLagMs(ResultSet status) throws Exception {
+        ResultSetMetaData metaData = status.getMetaData();
+        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+            if (metaData.getColumnLabel(column).startsWith("Seconds_Behind_")) {
+                long seconds = status.getLong(column);
+                return status.wasNull() ? -1 : seconds * 1000;
+            }
+        }
+        return -1;
+    }
+}
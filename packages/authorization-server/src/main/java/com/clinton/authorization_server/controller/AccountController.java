@@ -2,6 +2,7 @@ package com.clinton.authorization_server.controller;
 
 import com.clinton.authorization_server.annotations.ControllerAnnotations;
 import com.clinton.authorization_server.model.Account;
+import com.clinton.authorization_server.model.Money;
 import com.clinton.authorization_server.service.AccountService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -46,14 +47,14 @@ public class AccountController {
     @PostMapping(path = "/credit/{accountId}/{amount}", produces = "application/json")
     @ControllerAnnotations.CreditAccountDoc
     public ResponseEntity<String> creditAccount(@PathVariable Integer accountId, @PathVariable BigDecimal amount) {
-        accountService.creditAccount(accountId, amount);
+        accountService.creditAccount(accountId, Money.of(amount));
         return ResponseEntity.ok("Account credited with " + amount);
     }
 
     @PostMapping(path = "/debit/{accountId}/{amount}", produces = "application/json")
     @ControllerAnnotations.DebitAccountDoc
     public ResponseEntity<Void> debitAccount(@PathVariable Integer accountId, @PathVariable BigDecimal amount) {
-        accountService.debitAccount(accountId, amount);
+        accountService.debitAccount(accountId, Money.of(amount));
         return ResponseEntity.noContent().build();
     }
 }
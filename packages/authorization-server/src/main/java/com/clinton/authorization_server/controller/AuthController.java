@@ -3,18 +3,25 @@ package com.clinton.authorization_server.controller;
 
 import com.clinton.authorization_server.annotations.ControllerAnnotations;
 import com.clinton.authorization_server.model.Authorization;
+import com.clinton.authorization_server.model.AuthorizationBatch;
+import com.clinton.authorization_server.model.AuthorizationResult;
 import com.clinton.authorization_server.service.AccountService;
 import com.clinton.authorization_server.service.AuthService;
+import com.clinton.authorization_server.service.AuthorizationLanes;
+import com.clinton.authorization_server.service.IdempotencyCache;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * @author Clinton Fernandes
@@ -26,20 +33,60 @@ public class AuthController {
 
     private final AuthService authService;
     private final AccountService accountService;
+    private final IdempotencyCache idempotencyCache;
+    private final AuthorizationLanes authorizationLanes;
 
 
     @Autowired
-    public AuthController(AuthService _authService, AccountService _accountService) {
+    public AuthController(AuthService _authService, AccountService _accountService, IdempotencyCache _idempotencyCache, AuthorizationLanes _authorizationLanes) {
         this.authService = _authService;
         this.accountService = _accountService;
+        this.idempotencyCache = _idempotencyCache;
+        this.authorizationLanes = _authorizationLanes;
     }
 
+    /**
+     * With an {@code Idempotency-Key} header, a retry of the same payment gets the first attempt's answer instead of
+     * a second reservation.
+     */
     @PostMapping(path = "/", produces = "application/json")
     @ControllerAnnotations.AuthorizeTransactionDoc
-    public ResponseEntity<String> authorizeTransaction(@Valid @RequestBody Authorization authorization) {
+    public ResponseEntity<String> authorizeTransaction(@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey, @Valid @RequestBody Authorization authorization) {
         authorization.setTimestamp(LocalDateTime.now());
-        authService.authorizePaymentTransaction(authorization);
-        return ResponseEntity.ok("Authorized! Clearance to be done soon");
+        if (idempotencyKey == null) {
+            if (authorizationLanes.isEnabled()) {
+                AuthService.requireAuthorized(authorizationLanes.authorize(authorization));
+            } else {
+                authService.authorizePaymentTransaction(authorization);
+            }
+            return ResponseEntity.ok(AuthService.AUTHORIZED_MESSAGE);
+        }
+        authorization.setIdempotencyKey(idempotencyKey);
+        AuthorizationResult result = idempotencyCache.execute(idempotencyKey, authorization, () -> this.authorizeOnce(authorization));
+        AuthService.requireAuthorized(result);
+        return ResponseEntity.ok(result.message());
+    }
+
+    /**
+     * Losing the unique key race to the same key on another instance rolls this attempt back; the second call then
+     * finds the winner's authorization.
+     */
+    private AuthorizationResult authorizeOnce(Authorization authorization) {
+        try {
+            return authService.authorizeIdempotently(authorization);
+        } catch (DataIntegrityViolationException exception) {
+            authorization.setId(null);
+            authorization.setOutbox(null);
+            return authService.authorizeIdempotently(authorization);
+        }
+    }
+
+    @PostMapping(path = "/batch", produces = "application/json")
+    @ControllerAnnotations.AuthorizeTransactionBatchDoc
+    public ResponseEntity<List<AuthorizationResult>> authorizeTransactions(@Valid @RequestBody AuthorizationBatch authorizationBatch) {
+        LocalDateTime timestamp = LocalDateTime.now();
+        authorizationBatch.authorizations().forEach((authorization) -> authorization.setTimestamp(timestamp));
+        return ResponseEntity.ok(authService.authorizePaymentTransactions(authorizationBatch.authorizations()));
     }
 
 
@@ -34,6 +34,11 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(exception.getMessage());
     }
 
+    @ExceptionHandler(IdempotencyKeyException.class)
+    public ResponseEntity<String> handleIdempotencyKeyExceptions(IdempotencyKeyException exception) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(exception.getMessage());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -53,6 +58,14 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(ArithmeticException.class)
+    public ResponseEntity<Map<String, String>> handleArithmeticExceptions(ArithmeticException ex) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put("error", "Invalid amount");
+        LOG.error("Invalid amount", ex);
+        return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(SQLException.class)
     public ResponseEntity<Map<String, String>> handleSQLExceptions(SQLException ex) {
         Map<String, String> errors = new HashMap<>();
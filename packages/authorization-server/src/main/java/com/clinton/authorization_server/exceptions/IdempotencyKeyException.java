@@ -0,0 +1,11 @@
+package com.clinton.authorization_server.exceptions;
+
+/**
+ * @author Clinton Fernandes
+ */
+public class IdempotencyKeyException extends RuntimeException {
+
+    public IdempotencyKeyException(String message) {
+        super(message);
+    }
+}
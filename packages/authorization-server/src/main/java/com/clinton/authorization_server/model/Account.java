@@ -4,8 +4,6 @@ import com.clinton.authorization_server.exceptions.BalanceNotSufficientException
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 
-import java.math.BigDecimal;
-
 /**
  * @author Clinton Fernandes
  */
@@ -20,9 +18,11 @@ public class Account {
 
     private String accountType;
 
-    private BigDecimal accountBalance;
+    @Convert(converter = MoneyConverter.class)
+    private Money accountBalance;
 
-    private BigDecimal reservedAmount;
+    @Convert(converter = MoneyConverter.class)
+    private Money reservedAmount;
 
     @NotEmpty(message = "Phone number cannot be empty")
     private String phoneNumber;
@@ -30,7 +30,7 @@ public class Account {
     public Account() {
     }
 
-    public Account(Integer accountNumber, String accountName, String accountType, BigDecimal accountBalance) {
+    public Account(Integer accountNumber, String accountName, String accountType, Money accountBalance) {
         this.accountNumber = accountNumber;
         this.accountName = accountName;
         this.accountType = accountType;
@@ -61,11 +61,11 @@ public class Account {
         this.accountType = accountType;
     }
 
-    public BigDecimal getAccountBalance() {
+    public Money getAccountBalance() {
         return accountBalance;
     }
 
-    public void setAccountBalance(BigDecimal accountBalance) {
+    public void setAccountBalance(Money accountBalance) {
         this.accountBalance = accountBalance;
     }
 
@@ -77,28 +77,28 @@ public class Account {
         this.phoneNumber = phoneNumber;
     }
 
-    public BigDecimal getReservedAmount() {
+    public Money getReservedAmount() {
         return reservedAmount;
     }
 
-    public void setReservedAmount(BigDecimal reservedAmount) {
+    public void setReservedAmount(Money reservedAmount) {
         this.reservedAmount = reservedAmount;
     }
 
-    public void creditAccount(BigDecimal amount) {
-        this.setAccountBalance(accountBalance.add(amount));
+    public void creditAccount(Money amount) {
+        this.setAccountBalance(accountBalance.plus(amount));
     }
 
-    public void debitAccount(BigDecimal amount) {
-        if (accountBalance.subtract(amount).compareTo(BigDecimal.ZERO) >= 0) {
-            this.setAccountBalance(accountBalance.subtract(amount));
-        } else {
+    public void debitAccount(Money amount) {
+        Money remaining = accountBalance.minus(amount);
+        if (remaining.isNegative()) {
             throw new BalanceNotSufficientException();
         }
+        this.setAccountBalance(remaining);
     }
 
-    public Boolean sufficientBalance(BigDecimal amount) {
-        return ((accountBalance.subtract(reservedAmount)).subtract(amount)).compareTo(BigDecimal.ZERO) >= 0;
+    public boolean sufficientBalance(Money amount) {
+        return accountBalance.minus(reservedAmount).compareTo(amount) >= 0;
     }
 
     @Override
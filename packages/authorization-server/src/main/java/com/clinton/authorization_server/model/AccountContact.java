@@ -0,0 +1,9 @@
+package com.clinton.authorization_server.model;
+
+/**
+ * The parts of an {@link Account} the authorization path reads without loading the entity.
+ *
+ * @author Clinton Fernandes
+ */
+public record AccountContact(Integer accountNumber, String accountName, String phoneNumber) {
+}
@@ -1,20 +1,21 @@
 package com.clinton.authorization_server.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
  * @author Clinton Fernandes
  */
 @Entity
-@Table(name = "auth")
+@Table(name = "auth", indexes = @Index(name = "idx_auth_sender_account_id_timestamp", columnList = "sender_account_id, timestamp"), uniqueConstraints = @UniqueConstraint(name = "uk_auth_idempotency_key", columnNames = "idempotency_key"))
 public class Authorization {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "auth_seq")
+    @SequenceGenerator(name = "auth_seq", sequenceName = "auth_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -24,10 +25,15 @@ public class Authorization {
     private Integer receiverAccountId;
 
     @NotNull
-    private BigDecimal amount;
+    @Convert(converter = MoneyConverter.class)
+    private Money amount;
 
     private LocalDateTime timestamp;
 
+    @JsonIgnore
+    @Column(length = 64)
+    private String idempotencyKey;
+
     @OneToOne(cascade = CascadeType.ALL)
     @JoinColumn(name = "outbox_id", referencedColumnName = "id")
     private Outbox outbox;
@@ -56,11 +62,11 @@ public class Authorization {
         this.receiverAccountId = receiverAccountId;
     }
 
-    public BigDecimal getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
-    public void setAmount(BigDecimal amount) {
+    public void setAmount(Money amount) {
         this.amount = amount;
     }
 
@@ -72,6 +78,14 @@ public class Authorization {
         this.timestamp = timestamp;
     }
 
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
     public Outbox getOutbox() {
         return outbox;
     }
@@ -0,0 +1,13 @@
+package com.clinton.authorization_server.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * @author Clinton Fernandes
+ */
+public record AuthorizationBatch(@NotEmpty(message = "Authorizations cannot be empty") @Size(max = 500, message = "At most 500 authorizations per batch") List<@Valid Authorization> authorizations) {
+}
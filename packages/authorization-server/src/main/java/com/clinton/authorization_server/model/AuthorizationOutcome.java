@@ -0,0 +1,10 @@
+package com.clinton.authorization_server.model;
+
+/**
+ * @author Clinton Fernandes
+ */
+public enum AuthorizationOutcome {
+    AUTHORIZED,
+    DECLINED,
+    NOT_FOUND
+}
@@ -0,0 +1,9 @@
+package com.clinton.authorization_server.model;
+
+/**
+ * Per-item result of a batch authorization; {@code authorizationId} is null when nothing was recorded.
+ *
+ * @author Clinton Fernandes
+ */
+public record AuthorizationResult(Long authorizationId, AuthorizationOutcome outcome, String message) {
+}
@@ -0,0 +1,9 @@
+package com.clinton.authorization_server.model;
+
+/**
+ * @author Clinton Fernandes
+ */
+public enum EventType {
+    PAYMENT,
+    NOTIFICATION
+}
@@ -0,0 +1,63 @@
+package com.clinton.authorization_server.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount held as a {@code long} of minor units at the fixed {@link #SCALE} of the {@code DECIMAL(38,2)} amount
+ * columns, so balance checks and updates are plain long arithmetic instead of {@link BigDecimal} allocations.
+ * Arithmetic is checked: an amount that does not fit, or has more decimals than the scale, throws
+ * {@link ArithmeticException} instead of being rounded. It is read and written as a decimal number in JSON, and
+ * {@link MoneyConverter} stores it in the existing decimal columns.
+ *
+ * @author Clinton Fernandes
+ */
+public record Money(long minorUnits) implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+
+    public static final Money ZERO = new Money(0);
+
+    @JsonCreator
+    public static Money of(BigDecimal amount) {
+        return new Money(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    public static Money of(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public Money plus(Money amount) {
+        return new Money(Math.addExact(minorUnits, amount.minorUnits));
+    }
+
+    public Money minus(Money amount) {
+        return new Money(Math.subtractExact(minorUnits, amount.minorUnits));
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
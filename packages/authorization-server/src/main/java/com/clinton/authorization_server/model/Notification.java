@@ -0,0 +1,9 @@
+package com.clinton.authorization_server.model;
+
+/**
+ * Payload of a {@link EventType#NOTIFICATION} outbox row.
+ *
+ * @author Clinton Fernandes
+ */
+public record Notification(String recipientEmail, String recipientName) {
+}
@@ -1,24 +1,63 @@
 package com.clinton.authorization_server.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
 
 /**
  * @author Clinton Fernandes
  */
 @Entity
-@Table(name = "outbox")
+@Table(name = "outbox", indexes = {@Index(name = "idx_outbox_event_type_status_partition_id", columnList = "event_type, status, relay_partition, id"), @Index(name = "idx_outbox_status_lease_until", columnList = "status, lease_until"), @Index(name = "idx_outbox_status_created_at", columnList = "status, created_at")})
 public class Outbox {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @ColumnDefault("'PAYMENT'")
+    @Column(nullable = false, length = 16)
+    private EventType eventType = EventType.PAYMENT;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 16)
     private Status status;
 
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
     @OneToOne(mappedBy = "outbox")
     private Authorization authorization;
 
+    private String leaseOwner;
+
+    private LocalDateTime leaseUntil;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int publishAttempts;
+
+    @Column(length = 512)
+    private String lastError;
+
+    private LocalDateTime publishedAt;
+
+    @Column(updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    /**
+     * Generated by the database from the id; see the relay partitions migration.
+     */
+    @Column(insertable = false, updatable = false)
+    private Integer relayPartition;
+
     public Outbox() {
     }
 
@@ -27,6 +66,12 @@ public class Outbox {
         this.authorization = authorization;
     }
 
+    public Outbox(EventType eventType, Status status, String payload) {
+        this.eventType = eventType;
+        this.status = status;
+        this.payload = payload;
+    }
+
     public Long getId() {
         return id;
     }
@@ -35,6 +80,14 @@ public class Outbox {
         this.id = id;
     }
 
+    public EventType getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(EventType eventType) {
+        this.eventType = eventType;
+    }
+
     public Status getStatus() {
         return status;
     }
@@ -43,6 +96,14 @@ public class Outbox {
         this.status = status;
     }
 
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
     public Authorization getAuthorization() {
         return authorization;
     }
@@ -51,8 +112,60 @@ public class Outbox {
         this.authorization = authorization;
     }
 
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    public int getPublishAttempts() {
+        return publishAttempts;
+    }
+
+    public void setPublishAttempts(int publishAttempts) {
+        this.publishAttempts = publishAttempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getPublishedAt() {
+        return publishedAt;
+    }
+
+    public void setPublishedAt(LocalDateTime publishedAt) {
+        this.publishedAt = publishedAt;
+    }
+
+    public Integer getRelayPartition() {
+        return relayPartition;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
     @Override
     public String toString() {
-        return "Outbox{" + "id=" + id + ", status=" + status + ", authorization=" + authorization + '}';
+        return "Outbox{" + "id=" + id + ", eventType=" + eventType + ", status=" + status + ", payload='" + payload + '\'' + ", leaseOwner='" + leaseOwner + '\'' + ", leaseUntil=" + leaseUntil + ", publishAttempts=" + publishAttempts + ", lastError='" + lastError + '\'' + ", publishedAt=" + publishedAt + ", createdAt=" + createdAt + '}';
     }
 }
@@ -0,0 +1,9 @@
+package com.clinton.authorization_server.model;
+
+/**
+ * A claimed outbox row as the relay publishes it: the id and the payload written with the authorization.
+ *
+ * @author Clinton Fernandes
+ */
+public record OutboxMessage(Long id, String payload) {
+}
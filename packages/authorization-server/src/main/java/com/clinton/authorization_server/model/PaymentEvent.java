@@ -0,0 +1,22 @@
+package com.clinton.authorization_server.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Payload of a {@link EventType#PAYMENT} outbox row and body of the message the relay publishes for it. It carries
+ * everything clearance needs, so the consumer does not have to read the auth row or the account contacts back.
+ * Consumers check {@code schemaVersion}: fields are only added within a version, and a breaking change gets a new one.
+ *
+ * @author Clinton Fernandes
+ */
+public record PaymentEvent(int schemaVersion, int senderAccountId, int receiverAccountId, Money amount, LocalDateTime timestamp, Party sender, Party receiver) {
+
+    public static final int SCHEMA_VERSION = 1;
+
+    public PaymentEvent(Authorization authorization, AccountContact sender, AccountContact receiver) {
+        this(SCHEMA_VERSION, authorization.getSenderAccountId(), authorization.getReceiverAccountId(), authorization.getAmount(), authorization.getTimestamp(), new Party(sender.accountName(), sender.phoneNumber()), new Party(receiver.accountName(), receiver.phoneNumber()));
+    }
+
+    public record Party(String name, String email) {
+    }
+}
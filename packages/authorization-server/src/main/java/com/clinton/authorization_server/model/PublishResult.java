@@ -0,0 +1,22 @@
+package com.clinton.authorization_server.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of publishing a set of outbox rows: the ids that were accepted and, for the rest, the last error seen.
+ *
+ * @author Clinton Fernandes
+ */
+public record PublishResult(List<Long> published, Map<Long, String> failed) {
+
+    public PublishResult merge(PublishResult other) {
+        List<Long> mergedPublished = new ArrayList<>(published);
+        mergedPublished.addAll(other.published());
+        Map<Long, String> mergedFailed = new HashMap<>(failed);
+        mergedFailed.putAll(other.failed());
+        return new PublishResult(mergedPublished, mergedFailed);
+    }
+}
@@ -0,0 +1,44 @@
+package com.clinton.authorization_server.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Clinton Fernandes
+ */
+@Entity
+@Table(name = "relay_instance")
+public class RelayInstance {
+
+    @Id
+    @Column(length = 64)
+    private String instanceId;
+
+    @Column(nullable = false)
+    private LocalDateTime heartbeatAt;
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public LocalDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+
+    @Override
+    public String toString() {
+        return "RelayInstance{" + "instanceId='" + instanceId + '\'' + ", heartbeatAt=" + heartbeatAt + '}';
+    }
+}
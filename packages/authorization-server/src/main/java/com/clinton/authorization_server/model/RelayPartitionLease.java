@@ -0,0 +1,53 @@
+package com.clinton.authorization_server.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Clinton Fernandes
+ */
+@Entity
+@Table(name = "relay_partition_lease")
+public class RelayPartitionLease {
+
+    @Id
+    private Integer partitionId;
+
+    @Column(length = 64)
+    private String leaseOwner;
+
+    private LocalDateTime leaseUntil;
+
+    public Integer getPartitionId() {
+        return partitionId;
+    }
+
+    public void setPartitionId(Integer partitionId) {
+        this.partitionId = partitionId;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    @Override
+    public String toString() {
+        return "RelayPartitionLease{" + "partitionId=" + partitionId + ", leaseOwner='" + leaseOwner + '\'' + ", leaseUntil=" + leaseUntil + '}';
+    }
+}
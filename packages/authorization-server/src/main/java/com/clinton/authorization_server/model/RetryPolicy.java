@@ -0,0 +1,23 @@
+package com.clinton.authorization_server.model;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author Clinton Fernandes
+ */
+public record RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+
+    /**
+     * Exponential backoff with equal jitter: somewhere between half and all of {@code baseDelay * 2^(attempt - 1)},
+     * capped at {@code maxDelay}, so retries from many rows do not line up.
+     */
+    public Duration delay(int attempt) {
+        long ceiling = Math.min(baseDelay.toMillis() << Math.min(attempt - 1, 20), maxDelay.toMillis());
+        return Duration.ofMillis(ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1));
+    }
+
+    public boolean exhausted(int attempts) {
+        return attempts >= maxAttempts;
+    }
+}
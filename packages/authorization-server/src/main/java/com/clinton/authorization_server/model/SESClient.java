@@ -1,23 +1,33 @@
 package com.clinton.authorization_server.model;
 
-
+import com.clinton.authorization_server.config.AwsClientFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.ses.SesClient;
 
 /**
  * @author Clinton Fernandes
  */
 @Component
+@Profile("polling")
 public class SESClient {
 
     private final SesClient sesClient;
 
-    public SESClient() {
-        this.sesClient = SesClient.builder().region(Region.AP_SOUTH_1).build();
+    @Autowired
+    public SESClient(AwsClientFactory _awsClientFactory, @Value("${aws.ses.endpoint}") String endpoint) {
+        this.sesClient = _awsClientFactory.configure(SesClient.builder(), endpoint).httpClientBuilder(_awsClientFactory.syncHttpClient()).build();
     }
 
     public SesClient getSESClient() {
         return sesClient;
     }
+
+    @PreDestroy
+    public void close() {
+        sesClient.close();
+    }
 }
@@ -1,24 +1,33 @@
 package com.clinton.authorization_server.model;
 
+import com.clinton.authorization_server.config.AwsClientFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 
 /**
  * @author Clinton Fernandes
  */
 @Component
-@Profile("polling")
+@Profile({"auth", "polling"})
 public class SQSClient {
 
-    private final SqsClient sqsClient;
+    private final SqsAsyncClient sqsAsyncClient;
 
-    public SQSClient() {
-        this.sqsClient = SqsClient.builder().region(Region.AP_SOUTH_1).build();
+    @Autowired
+    public SQSClient(AwsClientFactory _awsClientFactory, @Value("${aws.sqs.endpoint}") String endpoint) {
+        this.sqsAsyncClient = _awsClientFactory.configure(SqsAsyncClient.builder(), endpoint).httpClientBuilder(_awsClientFactory.asyncHttpClient()).build();
     }
 
-    public SqsClient getSqsClient() {
-        return this.sqsClient;
+    public SqsAsyncClient getSqsAsyncClient() {
+        return this.sqsAsyncClient;
+    }
+
+    @PreDestroy
+    public void close() {
+        sqsAsyncClient.close();
     }
 }
@@ -5,7 +5,10 @@ package com.clinton.authorization_server.model;
  */
 public enum Status {
     AUTHORIZED,
+    IN_FLIGHT,
+    PUBLISHED,
     DECLINED,
     PENDING,
-    COMPLETED
+    COMPLETED,
+    DEAD
 }
@@ -1,12 +1,37 @@
 package com.clinton.authorization_server.repository;
 
 import com.clinton.authorization_server.model.Account;
+import com.clinton.authorization_server.model.AccountContact;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * @author Clinton Fernandes
  */
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Integer> {
+
+    @Query("SELECT new com.clinton.authorization_server.model.AccountContact(a.accountNumber, a.accountName, a.phoneNumber) FROM Account a WHERE a.accountNumber IN :accountNumbers")
+    List<AccountContact> findContacts(@Param("accountNumbers") Collection<Integer> accountNumbers);
+
+    /**
+     * Reserves {@code amount} only if the available balance covers it; the check and the write happen under the
+     * same row lock, so concurrent reservations on one account cannot overdraw it.
+     *
+     * @return 1 if the amount was reserved, 0 if the account does not exist or the balance is not sufficient
+     */
+    @Modifying
+    @Query(value = "UPDATE account SET reserved_amount = reserved_amount + :amount WHERE account_number = :accountNumber AND account_balance - reserved_amount >= :amount", nativeQuery = true)
+    int reserveAmount(@Param("accountNumber") Integer accountNumber, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("DELETE FROM Account a WHERE a.accountNumber = :accountNumber")
+    int deleteByAccountNumber(@Param("accountNumber") Integer accountNumber);
 }
@@ -1,12 +1,72 @@
 package com.clinton.authorization_server.repository;
 
 import com.clinton.authorization_server.model.Outbox;
+import com.clinton.authorization_server.model.OutboxMessage;
+import com.clinton.authorization_server.model.Status;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * @author Clinton Fernandes
  */
 @Repository
 public interface OutboxRepository extends JpaRepository<Outbox, Long> {
+
+    @Query(value = "SELECT id FROM outbox WHERE event_type = :eventType AND status = 'AUTHORIZED' AND relay_partition IN :partitions AND id > :afterId ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> findClaimableEvents(@Param("eventType") String eventType, @Param("partitions") List<Integer> partitions, @Param("afterId") long afterId, @Param("limit") int limit);
+
+    @Query("SELECT new com.clinton.authorization_server.model.OutboxMessage(o.id, o.payload) FROM Outbox o WHERE o.id IN :ids ORDER BY o.id")
+    List<OutboxMessage> findMessages(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Outbox o SET o.status = com.clinton.authorization_server.model.Status.IN_FLIGHT, o.leaseOwner = :owner, o.leaseUntil = :leaseUntil WHERE o.id IN :ids")
+    int lease(@Param("ids") List<Long> ids, @Param("owner") String owner, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE Outbox o SET o.status = com.clinton.authorization_server.model.Status.AUTHORIZED, o.leaseOwner = NULL, o.leaseUntil = NULL WHERE o.status = com.clinton.authorization_server.model.Status.IN_FLIGHT AND o.leaseUntil < :now")
+    int releaseExpiredLeases(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Outbox o SET o.status = com.clinton.authorization_server.model.Status.PUBLISHED, o.publishedAt = :publishedAt, o.publishAttempts = o.publishAttempts + 1, o.leaseOwner = NULL, o.leaseUntil = NULL WHERE o.id IN :ids AND o.leaseOwner = :owner AND o.status = com.clinton.authorization_server.model.Status.IN_FLIGHT")
+    int markPublished(@Param("ids") List<Long> ids, @Param("owner") String owner, @Param("publishedAt") LocalDateTime publishedAt);
+
+    @Modifying
+    @Query("UPDATE Outbox o SET o.publishAttempts = :publishAttempts, o.lastError = :lastError, o.leaseUntil = :leaseUntil, o.status = :status WHERE o.id = :id AND o.leaseOwner = :owner AND o.status = com.clinton.authorization_server.model.Status.IN_FLIGHT")
+    int recordPublishFailure(@Param("id") Long id, @Param("owner") String owner, @Param("publishAttempts") int publishAttempts, @Param("lastError") String lastError, @Param("leaseUntil") LocalDateTime leaseUntil, @Param("status") Status status);
+
+    @Query("SELECT o.status, COUNT(o) FROM Outbox o GROUP BY o.status")
+    List<Object[]> countByStatus();
+
+    @Query("SELECT MIN(o.createdAt) FROM Outbox o WHERE o.status IN (com.clinton.authorization_server.model.Status.AUTHORIZED, com.clinton.authorization_server.model.Status.IN_FLIGHT)")
+    LocalDateTime findOldestUnpublishedCreatedAt();
+
+    String ARCHIVABLE = "((event_type = 'PAYMENT' AND status IN ('COMPLETED', 'DECLINED')) OR (event_type = 'NOTIFICATION' AND status = 'PUBLISHED')) AND (created_at < :cutoff OR created_at IS NULL)";
+
+    @Query(value = "SELECT id FROM outbox WHERE id > :afterId AND " + ARCHIVABLE + " ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> findArchivableEvents(@Param("afterId") long afterId, @Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Query(value = "SELECT COUNT(*) FROM outbox WHERE status IN ('COMPLETED', 'DECLINED', 'PUBLISHED') AND " + ARCHIVABLE, nativeQuery = true)
+    long countArchivableEvents(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query(value = "INSERT INTO auth_history (id, sender_account_id, receiver_account_id, amount, timestamp, outbox_id, idempotency_key, archived_at) SELECT id, sender_account_id, receiver_account_id, amount, timestamp, outbox_id, idempotency_key, :archivedAt FROM auth WHERE outbox_id IN :ids", nativeQuery = true)
+    int copyAuthorizationsToHistory(@Param("ids") List<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Modifying
+    @Query(value = "INSERT INTO outbox_history (id, event_type, status, payload, publish_attempts, last_error, published_at, created_at, archived_at) SELECT id, event_type, status, payload, publish_attempts, last_error, published_at, created_at, :archivedAt FROM outbox WHERE id IN :ids", nativeQuery = true)
+    int copyEventsToHistory(@Param("ids") List<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Modifying
+    @Query(value = "DELETE FROM auth WHERE outbox_id IN :ids", nativeQuery = true)
+    int deleteAuthorizations(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM outbox WHERE id IN :ids", nativeQuery = true)
+    int deleteEvents(@Param("ids") List<Long> ids);
 }
@@ -0,0 +1,28 @@
+package com.clinton.authorization_server.repository;
+
+import com.clinton.authorization_server.model.RelayInstance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Clinton Fernandes
+ */
+@Repository
+public interface RelayInstanceRepository extends JpaRepository<RelayInstance, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO relay_instance (instance_id, heartbeat_at) VALUES (:instanceId, :now) ON DUPLICATE KEY UPDATE heartbeat_at = :now", nativeQuery = true)
+    int heartbeat(@Param("instanceId") String instanceId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT COUNT(r) FROM RelayInstance r WHERE r.heartbeatAt > :cutoff")
+    long countLive(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM RelayInstance r WHERE r.heartbeatAt < :cutoff")
+    int deleteStale(@Param("cutoff") LocalDateTime cutoff);
+}
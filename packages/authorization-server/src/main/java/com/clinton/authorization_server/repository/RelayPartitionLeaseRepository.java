@@ -0,0 +1,37 @@
+package com.clinton.authorization_server.repository;
+
+import com.clinton.authorization_server.model.RelayPartitionLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @author Clinton Fernandes
+ */
+@Repository
+public interface RelayPartitionLeaseRepository extends JpaRepository<RelayPartitionLease, Integer> {
+
+    @Modifying
+    @Query("UPDATE RelayPartitionLease r SET r.leaseUntil = :leaseUntil WHERE r.leaseOwner = :owner AND r.leaseUntil > :now")
+    int renew(@Param("owner") String owner, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Query("SELECT r.partitionId FROM RelayPartitionLease r WHERE r.leaseOwner = :owner AND r.leaseUntil > :now ORDER BY r.partitionId")
+    List<Integer> findOwned(@Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "UPDATE relay_partition_lease SET lease_owner = :owner, lease_until = :leaseUntil WHERE lease_owner IS NULL OR lease_until IS NULL OR lease_until < :now ORDER BY partition_id LIMIT :limit", nativeQuery = true)
+    int acquire(@Param("owner") String owner, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE RelayPartitionLease r SET r.leaseOwner = NULL, r.leaseUntil = NULL WHERE r.leaseOwner = :owner AND r.partitionId IN :partitionIds")
+    int release(@Param("owner") String owner, @Param("partitionIds") List<Integer> partitionIds);
+
+    @Modifying
+    @Query("UPDATE RelayPartitionLease r SET r.leaseOwner = NULL, r.leaseUntil = NULL WHERE r.leaseOwner = :owner")
+    int releaseAll(@Param("owner") String owner);
+}
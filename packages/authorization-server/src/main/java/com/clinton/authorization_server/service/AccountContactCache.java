@@ -0,0 +1,91 @@
+package com.clinton.authorization_server.service;
+
+import com.clinton.authorization_server.model.AccountContact;
+import com.clinton.authorization_server.repository.AccountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of which accounts exist, with the attributes that never change after creation (name and phone
+ * number). Unknown ids are cached as well, but only for {@code account.cache.missing-expire-after-write-ms}, so a
+ * burst of bad ids is rejected without a query while an account just created through another instance is found
+ * within a second or so. {@link AccountService} invalidates on create and delete; other instances only catch up when
+ * their entry expires, so known accounts are kept for a short {@code account.cache.expire-after-write-ms}, which
+ * bounds how long a deleted account can still be paid.
+ *
+ * @author Clinton Fernandes
+ */
+@Component
+@Profile("auth")
+public class AccountContactCache {
+
+    private final AccountRepository accountRepository;
+
+    private final Cache<Integer, Optional<AccountContact>> contacts;
+
+    @Autowired
+    public AccountContactCache(AccountRepository _accountRepository, MeterRegistry _meterRegistry, @Value("${account.cache.maximum-size}") long maximumSize, @Value("${account.cache.expire-after-write-ms}") long expireAfterWriteMs, @Value("${account.cache.missing-expire-after-write-ms}") long missingExpireAfterWriteMs) {
+        this.accountRepository = _accountRepository;
+        this.contacts = Caffeine.newBuilder().maximumSize(maximumSize).expireAfter(new Expiry<Integer, Optional<AccountContact>>() {
+            @Override
+            public long expireAfterCreate(Integer accountNumber, Optional<AccountContact> contact, long currentTime) {
+                return TimeUnit.MILLISECONDS.toNanos(contact.isPresent() ? expireAfterWriteMs : missingExpireAfterWriteMs);
+            }
+
+            @Override
+            public long expireAfterUpdate(Integer accountNumber, Optional<AccountContact> contact, long currentTime, long currentDuration) {
+                return this.expireAfterCreate(accountNumber, contact, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(Integer accountNumber, Optional<AccountContact> contact, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        }).recordStats().build();
+        CaffeineCacheMetrics.monitor(_meterRegistry, contacts, "accountContacts");
+    }
+
+    /**
+     * @return the contacts of the accounts that exist; ids that do not exist are left out
+     */
+    public Map<Integer, AccountContact> getContacts(Set<Integer> accountNumbers) {
+        Map<Integer, AccountContact> found = new HashMap<>(accountNumbers.size());
+        contacts.getAll(accountNumbers, this::load).forEach((accountNumber, contact) -> contact.ifPresent((value) -> found.put(accountNumber, value)));
+        return found;
+    }
+
+    /**
+     * Drops the entry now and again once the surrounding transaction commits, so a lookup racing the commit cannot
+     * leave the old state cached.
+     */
+    public void invalidate(Integer accountNumber) {
+        contacts.invalidate(accountNumber);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    contacts.invalidate(accountNumber);
+                }
+            });
+        }
+    }
+
+    private Map<Integer, Optional<AccountContact>> load(Set<? extends Integer> accountNumbers) {
+        Map<Integer, Optional<AccountContact>> loaded = new HashMap<>(accountNumbers.size());
+        accountNumbers.forEach((accountNumber) -> loaded.put(accountNumber, Optional.empty()));
+        accountRepository.findContacts(new ArrayList<>(accountNumbers)).forEach((contact) -> loaded.put(contact.accountNumber(), Optional.of(contact)));
+        return loaded;
+    }
+}
@@ -2,6 +2,7 @@ package com.clinton.authorization_server.service;
 
 import com.clinton.authorization_server.exceptions.AccountNotFoundException;
 import com.clinton.authorization_server.model.Account;
+import com.clinton.authorization_server.model.Money;
 import com.clinton.authorization_server.repository.AccountRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
@@ -12,7 +13,6 @@ import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.sql.SQLException;
 import java.util.Optional;
 
@@ -23,29 +23,33 @@ import java.util.Optional;
 @Profile("auth")
 public class AccountService {
     private final AccountRepository accountRepository;
+    private final AccountContactCache accountContactCache;
 
     @Autowired
-    public AccountService(AccountRepository _accountRepository) {
+    public AccountService(AccountRepository _accountRepository, AccountContactCache _accountContactCache) {
         this.accountRepository = _accountRepository;
+        this.accountContactCache = _accountContactCache;
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.SERIALIZABLE)
     public Account createAccount(Account account) {
-        account.setReservedAmount(BigDecimal.ZERO);
-        return accountRepository.save(account);
+        account.setReservedAmount(Money.ZERO);
+        Account created = accountRepository.save(account);
+        accountContactCache.invalidate(created.getAccountNumber());
+        return created;
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.SERIALIZABLE)
     public void deleteAccount(Integer accountId) {
-        if (accountRepository.existsById(accountId)) {
-            accountRepository.delete(accountRepository.getReferenceById(accountId));
+        if (accountRepository.deleteByAccountNumber(accountId) == 1) {
+            accountContactCache.invalidate(accountId);
         } else {
             throw new AccountNotFoundException("Account with id " + accountId + " not found");
         }
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
-    public void creditAccount(Integer accountId, BigDecimal amount) {
+    public void creditAccount(Integer accountId, Money amount) {
         Optional<Account> account = accountRepository.findById(accountId);
         if (account.isPresent()) {
             account.get().creditAccount(amount);
@@ -56,7 +60,7 @@ public class AccountService {
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED, rollbackFor = {DataAccessException.class, SQLException.class, TransactionException.class})
-    public void debitAccount(Integer accountId, BigDecimal amount) {
+    public void debitAccount(Integer accountId, Money amount) {
         Optional<Account> account = accountRepository.findById(accountId);
         if (account.isPresent()) {
             account.get().debitAccount(amount);
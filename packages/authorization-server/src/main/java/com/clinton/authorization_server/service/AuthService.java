@@ -2,12 +2,13 @@ package com.clinton.authorization_server.service;
 
 import com.clinton.authorization_server.exceptions.AccountNotFoundException;
 import com.clinton.authorization_server.exceptions.BalanceNotSufficientException;
-import com.clinton.authorization_server.model.Account;
-import com.clinton.authorization_server.model.Authorization;
-import com.clinton.authorization_server.model.Outbox;
-import com.clinton.authorization_server.model.Status;
+import com.clinton.authorization_server.exceptions.IdempotencyKeyException;
+import com.clinton.authorization_server.model.*;
 import com.clinton.authorization_server.repository.AccountRepository;
 import com.clinton.authorization_server.repository.AuthorizationRepository;
+import com.clinton.authorization_server.repository.OutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
@@ -18,7 +19,7 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.SQLException;
-import java.util.Optional;
+import java.util.*;
 
 /**
  * @author Clinton Fernandes
@@ -27,41 +28,162 @@ import java.util.Optional;
 @Profile("auth")
 public class AuthService {
 
+    public static final String AUTHORIZED_MESSAGE = "Authorized! Clearance to be done soon";
+
     private final AccountRepository accountRepository;
+    private final AccountContactCache accountContactCache;
     private final AuthorizationRepository authorizationRepository;
+    private final OutboxRepository outboxRepository;
+    private final FastPathPublisher fastPathPublisher;
 
-    private final SendNotificationToSES sendNotificationToSES;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public AuthService(AccountRepository _accountRepository, AuthorizationRepository _authorizationRepository, SendNotificationToSES _sendNotificationToSES) {
+    public AuthService(AccountRepository _accountRepository, AccountContactCache _accountContactCache, AuthorizationRepository _authorizationRepository, OutboxRepository _outboxRepository, FastPathPublisher _fastPathPublisher, ObjectMapper _objectMapper) {
         this.accountRepository = _accountRepository;
+        this.accountContactCache = _accountContactCache;
         this.authorizationRepository = _authorizationRepository;
-        this.sendNotificationToSES = _sendNotificationToSES;
+        this.outboxRepository = _outboxRepository;
+        this.fastPathPublisher = _fastPathPublisher;
+        this.objectMapper = _objectMapper;
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_UNCOMMITTED, timeout = 180, rollbackFor = {DataAccessException.class, SQLException.class, TransactionException.class}, noRollbackFor = {BalanceNotSufficientException.class})
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED, timeout = 180, rollbackFor = {DataAccessException.class, SQLException.class, TransactionException.class}, noRollbackFor = {BalanceNotSufficientException.class})
     public void authorizePaymentTransaction(Authorization authorization) {
-        Outbox outbox;
-        Optional<Account> senderAccount = accountRepository.findById(authorization.getSenderAccountId());
-        Optional<Account> receiverAccount = accountRepository.findById(authorization.getReceiverAccountId());
-
-        if (senderAccount.isPresent() && receiverAccount.isPresent()) {
-            Account account = senderAccount.get();
-            if (account.sufficientBalance(authorization.getAmount())) {
-                account.setReservedAmount(account.getReservedAmount().add(authorization.getAmount()));
-                outbox = new Outbox(Status.AUTHORIZED, authorization);
-                authorization.setOutbox(outbox);
-                accountRepository.save(account);
-                authorizationRepository.save(authorization);
-                sendNotificationToSES.sendNotification(account.getPhoneNumber(), account.getAccountName());
+        requireAuthorized(this.authorize(List.of(authorization)).getFirst());
+    }
+
+    /**
+     * Authorizes a request carrying an {@code Idempotency-Key}, unless an authorization with that key was already
+     * recorded: then its outcome is returned and nothing is reserved again. A first attempt that is still running on
+     * another instance makes this one fail on the unique key at commit, rolling back its reservation.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED, timeout = 180, rollbackFor = {DataAccessException.class, SQLException.class, TransactionException.class})
+    public AuthorizationResult authorizeIdempotently(Authorization authorization) {
+        Optional<Authorization> recorded = authorizationRepository.findByIdempotencyKey(authorization.getIdempotencyKey());
+        if (recorded.isEmpty()) {
+            return this.authorize(List.of(authorization)).getFirst();
+        }
+        Authorization original = recorded.get();
+        if (!original.getSenderAccountId().equals(authorization.getSenderAccountId()) || !original.getReceiverAccountId().equals(authorization.getReceiverAccountId()) || !original.getAmount().equals(authorization.getAmount())) {
+            throw new IdempotencyKeyException("Idempotency-Key " + authorization.getIdempotencyKey() + " was already used for a different payment");
+        }
+        if (original.getOutbox() != null && original.getOutbox().getStatus() == Status.DECLINED) {
+            return new AuthorizationResult(original.getId(), AuthorizationOutcome.DECLINED, new BalanceNotSufficientException().getMessage());
+        }
+        return new AuthorizationResult(original.getId(), AuthorizationOutcome.AUTHORIZED, AUTHORIZED_MESSAGE);
+    }
+
+    /**
+     * Turns a declined or rejected outcome into the exception the single-payment endpoint answers with.
+     */
+    public static void requireAuthorized(AuthorizationResult result) {
+        if (result.outcome() == AuthorizationOutcome.NOT_FOUND) {
+            throw new AccountNotFoundException(result.message());
+        }
+        if (result.outcome() == AuthorizationOutcome.DECLINED) {
+            throw new BalanceNotSufficientException();
+        }
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED, timeout = 180, rollbackFor = {DataAccessException.class, SQLException.class, TransactionException.class})
+    public List<AuthorizationResult> authorizePaymentTransactions(List<Authorization> authorizations) {
+        return this.authorize(authorizations);
+    }
+
+    /**
+     * Parties come from the account cache, which needs at most one projection query for the ones it lacks, and the
+     * amounts are reserved with conditional updates, so nothing but the senders' rows is locked. Senders are reserved
+     * in ascending account order, so two batches with overlapping senders lock their rows in the same order and cannot
+     * deadlock. Payments from the same sender are reserved together with one update for their sum; only when the sum
+     * does not fit is each one reserved on its own, in order, so the outcome is the same as reserving them one by one.
+     * All reservations run before any entity is saved: the auth, outbox and notification rows are then flushed together
+     * at commit as a few batched inserts. Payment events carry a {@link PaymentEvent} payload, so clearance reads
+     * neither the auth row nor the accounts' contacts back, and are handed to the fast path once the transaction
+     * commits.
+     */
+    private List<AuthorizationResult> authorize(List<Authorization> authorizations) {
+        Set<Integer> accountNumbers = new HashSet<>();
+        authorizations.forEach((authorization) -> {
+            accountNumbers.add(authorization.getSenderAccountId());
+            accountNumbers.add(authorization.getReceiverAccountId());
+        });
+        Map<Integer, AccountContact> contacts = accountContactCache.getContacts(accountNumbers);
+
+        AuthorizationOutcome[] outcomes = new AuthorizationOutcome[authorizations.size()];
+        Map<Integer, List<Integer>> bySender = new TreeMap<>();
+        for (int i = 0; i < authorizations.size(); i++) {
+            Authorization authorization = authorizations.get(i);
+            if (!contacts.containsKey(authorization.getSenderAccountId()) || !contacts.containsKey(authorization.getReceiverAccountId())) {
+                outcomes[i] = AuthorizationOutcome.NOT_FOUND;
             } else {
-                outbox = new Outbox(Status.DECLINED, authorization);
-                authorization.setOutbox(outbox);
-                authorizationRepository.save(authorization);
-                throw new BalanceNotSufficientException();
+                bySender.computeIfAbsent(authorization.getSenderAccountId(), (ignored) -> new ArrayList<>()).add(i);
             }
-        } else {
-            throw new AccountNotFoundException("Account with id " + (senderAccount.isEmpty() ? authorization.getSenderAccountId() : authorization.getReceiverAccountId()) + " not found");
+        }
+        bySender.forEach((senderAccountId, indexes) -> this.reserve(senderAccountId, indexes, authorizations, outcomes));
+
+        List<Authorization> recorded = new ArrayList<>(authorizations.size());
+        List<Outbox> notifications = new ArrayList<>(authorizations.size());
+        List<Outbox> payments = new ArrayList<>(authorizations.size());
+        for (int i = 0; i < authorizations.size(); i++) {
+            Authorization authorization = authorizations.get(i);
+            if (outcomes[i] == AuthorizationOutcome.AUTHORIZED) {
+                AccountContact sender = contacts.get(authorization.getSenderAccountId());
+                Outbox payment = new Outbox(Status.AUTHORIZED, authorization);
+                payment.setPayload(this.toPayload(new PaymentEvent(authorization, sender, contacts.get(authorization.getReceiverAccountId()))));
+                authorization.setOutbox(fastPathPublisher.newPaymentEvent(payment));
+                payments.add(authorization.getOutbox());
+                notifications.add(new Outbox(EventType.NOTIFICATION, Status.AUTHORIZED, this.toPayload(new Notification(sender.phoneNumber(), sender.accountName()))));
+                recorded.add(authorization);
+            } else if (outcomes[i] == AuthorizationOutcome.DECLINED) {
+                authorization.setOutbox(new Outbox(Status.DECLINED, authorization));
+                recorded.add(authorization);
+            }
+        }
+        authorizationRepository.saveAll(recorded);
+        outboxRepository.saveAll(notifications);
+        fastPathPublisher.publishAfterCommit(payments);
+
+        List<AuthorizationResult> results = new ArrayList<>(authorizations.size());
+        for (int i = 0; i < authorizations.size(); i++) {
+            Authorization authorization = authorizations.get(i);
+            results.add(switch (outcomes[i]) {
+                case AUTHORIZED -> new AuthorizationResult(authorization.getId(), outcomes[i], AUTHORIZED_MESSAGE);
+                case DECLINED -> new AuthorizationResult(authorization.getId(), outcomes[i], new BalanceNotSufficientException().getMessage());
+                case NOT_FOUND -> new AuthorizationResult(null, outcomes[i], "Account with id " + (contacts.containsKey(authorization.getSenderAccountId()) ? authorization.getReceiverAccountId() : authorization.getSenderAccountId()) + " not found");
+            });
+        }
+        return results;
+    }
+
+    private void reserve(Integer senderAccountId, List<Integer> indexes, List<Authorization> authorizations, AuthorizationOutcome[] outcomes) {
+        if (indexes.size() > 1) {
+            Money total = Money.ZERO;
+            boolean allPositive = true;
+            try {
+                for (int index : indexes) {
+                    total = total.plus(authorizations.get(index).getAmount());
+                    allPositive &= authorizations.get(index).getAmount().isPositive();
+                }
+            } catch (ArithmeticException overflow) {
+                // a sum past the range of Money cannot fit any balance, so let each payment be declined on its own
+                allPositive = false;
+            }
+            if (allPositive && accountRepository.reserveAmount(senderAccountId, total.toBigDecimal()) == 1) {
+                indexes.forEach((index) -> outcomes[index] = AuthorizationOutcome.AUTHORIZED);
+                return;
+            }
+        }
+        for (int index : indexes) {
+            outcomes[index] = accountRepository.reserveAmount(senderAccountId, authorizations.get(index).getAmount().toBigDecimal()) == 1 ? AuthorizationOutcome.AUTHORIZED : AuthorizationOutcome.DECLINED;
+        }
+    }
+
+    private String toPayload(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException exception) {
+            throw new RuntimeException(exception);
         }
     }
 }
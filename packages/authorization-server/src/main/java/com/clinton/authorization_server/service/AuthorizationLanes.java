@@ -0,0 +1,175 @@
+package com.clinton.authorization_server.service;
+
+import com.clinton.authorization_server.model.Authorization;
+import com.clinton.authorization_server.model.AuthorizationResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single-writer lanes for single-payment authorizations. Payments are striped over the lanes by sender account, so
+ * one thread per lane is the only writer of that sender's row on this instance. While a lane's transaction runs, the
+ * requests behind it queue up; the lane then authorizes all of them in one transaction, where payments from the same
+ * sender share one conditional reservation and all rows go out as one batched insert. A full lane, or lanes being
+ * off, falls back to authorizing on the request thread, and so does a lane whose writer has died or that has not
+ * picked a payment up within {@code authorization.lanes.wait-timeout-ms}.
+ *
+ * @author Clinton Fernandes
+ */
+@Service
+@Profile("auth")
+public class AuthorizationLanes {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AuthorizationLanes.class);
+
+    private final AuthService authService;
+
+    private final List<BlockingQueue<Pending>> lanes = new ArrayList<>();
+
+    private final List<Thread> writers = new ArrayList<>();
+
+    private final DistributionSummary batchSize;
+
+    private final Counter overflow;
+
+    private volatile boolean running;
+
+    @Value("${authorization.lanes.enabled}")
+    private boolean enabled;
+
+    @Value("${authorization.lanes.max-batch-size}")
+    private int maxBatchSize;
+
+    @Value("${authorization.lanes.wait-timeout-ms}")
+    private long waitTimeoutMs;
+
+    @Autowired
+    public AuthorizationLanes(AuthService _authService, MeterRegistry _meterRegistry, @Value("${authorization.lanes.count}") int laneCount, @Value("${authorization.lanes.queue-capacity}") int queueCapacity) {
+        this.authService = _authService;
+        for (int lane = 0; lane < laneCount; lane++) {
+            lanes.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+        this.batchSize = DistributionSummary.builder("authorization.lane.batch.size").description("Payments authorized together by one lane transaction").register(_meterRegistry);
+        this.overflow = Counter.builder("authorization.lane.overflow").description("Payments authorized on the request thread because their lane was full, dead or not answering").register(_meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            running = true;
+            for (int lane = 0; lane < lanes.size(); lane++) {
+                BlockingQueue<Pending> queue = lanes.get(lane);
+                Thread writer = new Thread(() -> this.drain(queue), "authorization-lane-" + lane);
+                writer.setDaemon(true);
+                writer.start();
+                writers.add(writer);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread writer : writers) {
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Waits at most {@code authorization.lanes.wait-timeout-ms} for the lane. A payment it has not picked up by then
+     * is taken back off the queue and authorized on the request thread; one already in a lane transaction is left to
+     * that transaction, whose own timeout ends it, and the request fails.
+     */
+    public AuthorizationResult authorize(Authorization authorization) {
+        int lane = Math.floorMod(authorization.getSenderAccountId(), lanes.size());
+        Pending pending = new Pending(authorization, new CompletableFuture<>());
+        if (!running || !writers.get(lane).isAlive() || !lanes.get(lane).offer(pending)) {
+            overflow.increment();
+            return authService.authorizePaymentTransactions(List.of(authorization)).getFirst();
+        }
+        try {
+            return pending.result().get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException exception) {
+            if (lanes.get(lane).remove(pending)) {
+                LOG.warn("Authorization lane {} did not pick a payment up within {} ms, authorizing it on the request thread", lane, waitTimeoutMs);
+                overflow.increment();
+                return authService.authorizePaymentTransactions(List.of(authorization)).getFirst();
+            }
+            throw new IllegalStateException("Authorization lane " + lane + " did not answer within " + waitTimeoutMs + " ms", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (exception.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new CompletionException(exception.getCause());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for authorization lane " + lane, exception);
+        }
+    }
+
+    /**
+     * Every payment taken off the queue is completed, whatever the transaction throws. An {@link Error} also ends the
+     * writer: {@link #authorize} stops routing to a lane whose writer is no longer alive, and the payments still
+     * queued on it are failed rather than left waiting.
+     */
+    private void drain(BlockingQueue<Pending> queue) {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, maxBatchSize - 1);
+                    batchSize.record(batch.size());
+                    List<AuthorizationResult> results = authService.authorizePaymentTransactions(batch.stream().map(Pending::authorization).toList());
+                    for (int i = 0; i < batch.size(); i++) {
+                        batch.get(i).result().complete(results.get(i));
+                    }
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Throwable throwable) {
+                    LOG.error("Authorization lane failed for {} payments! {}", batch.size(), throwable.getMessage(), throwable);
+                    batch.forEach((pending) -> pending.result().completeExceptionally(throwable));
+                    if (throwable instanceof Error error) {
+                        throw error;
+                    }
+                } finally {
+                    batch.clear();
+                }
+            }
+        } finally {
+            List<Pending> abandoned = new ArrayList<>();
+            queue.drainTo(abandoned);
+            abandoned.forEach((pending) -> pending.result().completeExceptionally(new IllegalStateException(running ? "Authorization lane writer died" : "Authorization lanes stopped")));
+        }
+    }
+
+    private record Pending(Authorization authorization, CompletableFuture<AuthorizationResult> result) {
+    }
+}
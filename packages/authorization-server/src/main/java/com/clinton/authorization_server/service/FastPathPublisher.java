@@ -0,0 +1,211 @@
+package com.clinton.authorization_server.service;
+
+import com.clinton.authorization_server.model.Outbox;
+import com.clinton.authorization_server.model.OutboxMessage;
+import com.clinton.authorization_server.model.PublishResult;
+import com.clinton.authorization_server.model.RetryPolicy;
+import com.clinton.authorization_server.model.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes payment events from the auth instance right after the authorization commits, instead of waiting for
+ * the next relay pass. The outbox row is written already leased to this publisher, so the relay leaves it alone;
+ * if the publisher never gets to it (full queue, crash, failed send) the lease runs out and the relay picks the row
+ * up as usual. The queue is bounded and in memory only: the outbox row stays the source of truth. Queued events
+ * carry their payload, so publishing them reads nothing back from the database.
+ *
+ * @author Clinton Fernandes
+ */
+@Service
+@Profile("auth")
+public class FastPathPublisher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FastPathPublisher.class);
+
+    private static final int MAX_BATCH_SIZE = 10;
+
+    private final OutboxService outboxService;
+
+    private final SendMessageToSQS sendMessageToSQS;
+
+    private final String publisherId = "fast-path-" + UUID.randomUUID();
+
+    private final RetryPolicy publishRetryPolicy;
+
+    private final BlockingQueue<OutboxMessage> queue;
+
+    private final Counter enqueued;
+
+    private final Counter dropped;
+
+    private volatile boolean running;
+
+    private Thread sender;
+
+    @Value("${outbox.fast-path.enabled}")
+    private boolean enabled;
+
+    @Value("${outbox.fast-path.lease-ms}")
+    private long leaseMs;
+
+    @Value("${outbox.fast-path.linger-ms}")
+    private long lingerMs;
+
+    @Autowired
+    public FastPathPublisher(OutboxService _outboxService, SendMessageToSQS _sendMessageToSQS, MeterRegistry _meterRegistry, @Value("${outbox.fast-path.queue-capacity}") int queueCapacity, @Value("${outbox.relay.max-publish-attempts}") int maxPublishAttempts, @Value("${outbox.relay.retry-base-delay-ms}") long retryBaseDelayMs, @Value("${outbox.relay.retry-max-delay-ms}") long retryMaxDelayMs) {
+        this.outboxService = _outboxService;
+        this.sendMessageToSQS = _sendMessageToSQS;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.publishRetryPolicy = new RetryPolicy(maxPublishAttempts, Duration.ofMillis(retryBaseDelayMs), Duration.ofMillis(retryMaxDelayMs));
+        this.enqueued = Counter.builder("outbox.fast-path.events").tag("result", "enqueued").register(_meterRegistry);
+        this.dropped = Counter.builder("outbox.fast-path.events").tag("result", "dropped").register(_meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            running = true;
+            sender = new Thread(this::drain, "outbox-fast-path");
+            sender.setDaemon(true);
+            sender.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (sender != null) {
+            sender.interrupt();
+            sender.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * Writes a new payment event already leased to this publisher, or leaves it {@link Status#AUTHORIZED} for the
+     * relay when the fast path is off or its queue is full.
+     */
+    public Outbox newPaymentEvent(Outbox outbox) {
+        if (enabled && queue.remainingCapacity() > 0) {
+            outbox.setStatus(Status.IN_FLIGHT);
+            outbox.setLeaseOwner(publisherId);
+            outbox.setLeaseUntil(LocalDateTime.now().plus(Duration.ofMillis(leaseMs)));
+        }
+        return outbox;
+    }
+
+    /**
+     * Queues the events leased by {@link #newPaymentEvent} once the current transaction commits; nothing is queued
+     * if it rolls back.
+     */
+    public void publishAfterCommit(List<Outbox> outboxes) {
+        List<OutboxMessage> leased = new ArrayList<>(outboxes.size());
+        for (Outbox outbox : outboxes) {
+            if (publisherId.equals(outbox.getLeaseOwner())) {
+                leased.add(new OutboxMessage(outbox.getId(), outbox.getPayload()));
+            }
+        }
+        if (leased.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.enqueue(leased);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(leased);
+            }
+        });
+    }
+
+    private void enqueue(List<OutboxMessage> messages) {
+        for (OutboxMessage message : messages) {
+            if (queue.offer(message)) {
+                enqueued.increment();
+            } else {
+                dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * Sends as soon as ten events are queued, or {@code outbox.fast-path.linger-ms} after the first one, whichever
+     * comes first. Results are recorded on this thread once their send completes, so the outbox updates never run
+     * on the AWS SDK's completion threads.
+     */
+    private void drain() {
+        Deque<CompletableFuture<PublishResult>> inFlightBatches = new ArrayDeque<>();
+        while (running) {
+            try {
+                while (!inFlightBatches.isEmpty() && inFlightBatches.peek().isDone()) {
+                    this.recordPublishResult(inFlightBatches.poll().join());
+                }
+                OutboxMessage first = queue.poll(inFlightBatches.isEmpty() ? 1000 : Math.max(1, lingerMs), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<OutboxMessage> batch = new ArrayList<>(MAX_BATCH_SIZE);
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < MAX_BATCH_SIZE) {
+                    OutboxMessage next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                inFlightBatches.add(sendMessageToSQS.sendMessageInBatch(batch).handle((result, throwable) -> {
+                    if (throwable != null) {
+                        LOG.error("Fast path publish failed for {}, leaving them to the relay", batch.stream().map(OutboxMessage::id).toList(), throwable);
+                    }
+                    return result;
+                }));
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception exception) {
+                LOG.error("Fast path sender failed! {}", exception.getMessage(), exception);
+            }
+        }
+    }
+
+    private void recordPublishResult(PublishResult publishResult) {
+        if (publishResult == null) {
+            return;
+        }
+        try {
+            if (!publishResult.published().isEmpty()) {
+                outboxService.markPublished(publishResult.published(), publisherId);
+            }
+            if (!publishResult.failed().isEmpty()) {
+                outboxService.recordPublishFailures(publishResult.failed(), publisherId, publishRetryPolicy);
+            }
+        } catch (Exception exception) {
+            LOG.error("Recording fast path publish result failed! {}", exception.getMessage(), exception);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.clinton.authorization_server.service;
+
+import com.clinton.authorization_server.exceptions.IdempotencyKeyException;
+import com.clinton.authorization_server.model.Authorization;
+import com.clinton.authorization_server.model.AuthorizationResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of recent {@code Idempotency-Key}s and the outcome of the request that first used each. A retry
+ * that reaches this instance is answered from here without touching the database, and a duplicate arriving while
+ * the first request is still running waits for its outcome instead of authorizing again. Keys that fell out of the
+ * cache, or were first used on another instance, are caught by the unique key on the auth table.
+ *
+ * @author Clinton Fernandes
+ */
+@Component
+@Profile("auth")
+public class IdempotencyCache {
+
+    public static final int MAX_KEY_LENGTH = 64;
+
+    private final Cache<String, Call> calls;
+
+    @Autowired
+    public IdempotencyCache(MeterRegistry _meterRegistry, @Value("${idempotency.cache.maximum-size}") long maximumSize, @Value("${idempotency.cache.expire-after-write-ms}") long expireAfterWriteMs) {
+        this.calls = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(Duration.ofMillis(expireAfterWriteMs)).recordStats().build();
+        CaffeineCacheMetrics.monitor(_meterRegistry, calls, "idempotencyKeys");
+    }
+
+    /**
+     * Runs {@code authorization} once per key. A failure that is not an outcome, such as a database error, is not
+     * remembered: the key is dropped so the client's next retry runs again.
+     *
+     * @throws IdempotencyKeyException when the key is too long or was used for a different payment
+     */
+    public AuthorizationResult execute(String idempotencyKey, Authorization request, Supplier<AuthorizationResult> authorization) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IdempotencyKeyException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        Call created = new Call(fingerprint(request), new CompletableFuture<>());
+        Call call = calls.get(idempotencyKey, (ignored) -> created);
+        if (!call.fingerprint().equals(created.fingerprint())) {
+            throw new IdempotencyKeyException("Idempotency-Key " + idempotencyKey + " was already used for a different payment");
+        }
+        if (call != created) {
+            try {
+                return call.result().join();
+            } catch (CompletionException exception) {
+                throw exception.getCause() instanceof RuntimeException cause ? cause : exception;
+            }
+        }
+        try {
+            AuthorizationResult result = authorization.get();
+            created.result().complete(result);
+            return result;
+        } catch (RuntimeException exception) {
+            calls.asMap().remove(idempotencyKey, created);
+            created.result().completeExceptionally(exception);
+            throw exception;
+        }
+    }
+
+    private static String fingerprint(Authorization request) {
+        return request.getSenderAccountId() + ":" + request.getReceiverAccountId() + ":" + request.getAmount().minorUnits();
+    }
+
+    private record Call(String fingerprint, CompletableFuture<AuthorizationResult> result) {
+    }
+}
@@ -0,0 +1,133 @@
+package com.clinton.authorization_server.service;
+
+import com.clinton.authorization_server.model.EventType;
+import com.clinton.authorization_server.model.Notification;
+import com.clinton.authorization_server.model.OutboxMessage;
+import com.clinton.authorization_server.model.RetryPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Delivers {@link EventType#NOTIFICATION} outbox rows through SES, away from the authorization request path.
+ *
+ * @author Clinton Fernandes
+ */
+@Profile("polling")
+@Service
+public class NotificationDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private final OutboxService outboxService;
+
+    private final SendNotificationToSES sendNotificationToSES;
+
+    private final TaskExecutor notificationExecutor;
+
+    private final ObjectMapper objectMapper;
+
+    private final PartitionCoordinator partitionCoordinator;
+
+    private final String dispatcherId = UUID.randomUUID().toString();
+
+    private final RetryPolicy retryPolicy;
+
+    @Value("${notification.dispatcher.max-per-second}")
+    private int maxPerSecond;
+
+    private double allowance;
+
+    @Value("${notification.dispatcher.lease-duration-ms}")
+    private long leaseDurationMs;
+
+    @Autowired
+    public NotificationDispatcher(OutboxService _outboxService, SendNotificationToSES _sendNotificationToSES, @Qualifier("notificationExecutor") TaskExecutor _notificationExecutor, ObjectMapper _objectMapper, PartitionCoordinator _partitionCoordinator, @Value("${notification.dispatcher.max-attempts}") int maxAttempts, @Value("${notification.dispatcher.retry-base-delay-ms}") long retryBaseDelayMs, @Value("${notification.dispatcher.retry-max-delay-ms}") long retryMaxDelayMs) {
+        this.outboxService = _outboxService;
+        this.sendNotificationToSES = _sendNotificationToSES;
+        this.notificationExecutor = _notificationExecutor;
+        this.objectMapper = _objectMapper;
+        this.partitionCoordinator = _partitionCoordinator;
+        this.retryPolicy = new RetryPolicy(maxAttempts, Duration.ofMillis(retryBaseDelayMs), Duration.ofMillis(retryMaxDelayMs));
+    }
+
+    /**
+     * Claims at most {@code notification.dispatcher.max-per-second} notifications a second across all polling
+     * instances, which keeps the send rate under the SES sending quota, and fans them out over the notification
+     * worker pool. The rate is split evenly over the relay partitions, and each instance only sends from the ones it
+     * holds, so the shares add up to the configured rate. Only whole sends are claimed and the fraction left over is
+     * carried into the next second, so a share of 5.25 a second claims 5, 5, 5 and then 6, and a share below one waits
+     * until it has earned a whole send rather than rounding up. Sends earned while there is nothing to claim are kept
+     * only up to one send above the share, so an idle instance bursts at most one send past it.
+     */
+    @Scheduled(fixedRate = 1000)
+    public void dispatchNotifications() {
+        try {
+            List<Integer> partitions = partitionCoordinator.getOwnedPartitions();
+            if (partitions.isEmpty()) {
+                allowance = 0;
+                return;
+            }
+            double share = (double) maxPerSecond * partitions.size() / partitionCoordinator.getTotalPartitions();
+            allowance = Math.min(allowance + share, share + 1);
+            if (allowance < 1) {
+                return;
+            }
+            List<OutboxMessage> claimed = outboxService.claimAuthorizedEvents(EventType.NOTIFICATION, partitions, dispatcherId, 0, (int) allowance, Duration.ofMillis(leaseDurationMs));
+            allowance -= claimed.size();
+            if (claimed.isEmpty()) {
+                return;
+            }
+            Queue<Long> sent = new ConcurrentLinkedQueue<>();
+            Map<Long, String> failed = new ConcurrentHashMap<>();
+            List<CompletableFuture<Void>> sends = new ArrayList<>(claimed.size());
+            for (OutboxMessage message : claimed) {
+                sends.add(CompletableFuture.runAsync(() -> {
+                    Notification notification = this.toNotification(message.payload());
+                    sendNotificationToSES.sendNotification(notification.recipientEmail(), notification.recipientName());
+                }, notificationExecutor).handle((ignored, throwable) -> {
+                    if (throwable == null) {
+                        sent.add(message.id());
+                    } else {
+                        failed.put(message.id(), String.valueOf(throwable.getCause() != null ? throwable.getCause().getMessage() : throwable.getMessage()));
+                    }
+                    return null;
+                }));
+            }
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).join();
+            if (!sent.isEmpty()) {
+                outboxService.markPublished(new ArrayList<>(sent), dispatcherId);
+            }
+            if (!failed.isEmpty()) {
+                outboxService.recordPublishFailures(failed, dispatcherId, retryPolicy);
+            }
+        } catch (Exception exception) {
+            LOG.error("Notification dispatch failed! ", exception);
+        }
+    }
+
+    private Notification toNotification(String payload) {
+        try {
+            return objectMapper.readValue(payload, Notification.class);
+        } catch (Exception exception) {
+            throw new RuntimeException("Unreadable notification payload", exception);
+        }
+    }
+}
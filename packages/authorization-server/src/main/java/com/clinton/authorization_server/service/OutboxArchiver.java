@@ -0,0 +1,82 @@
+package com.clinton.authorization_server.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves cleared, declined and sent rows older than {@code outbox.archive.retention-days} out of the hot tables. Each
+ * chunk is its own short transaction and the job pauses between chunks, so it never holds locks for long or takes a
+ * connection away from authorizations for more than one chunk at a time.
+ *
+ * @author Clinton Fernandes
+ */
+@Service
+@Profile("polling")
+public class OutboxArchiver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxArchiver.class);
+
+    private final OutboxService outboxService;
+
+    private final Counter archivedRows;
+
+    private final AtomicLong backlog = new AtomicLong();
+
+    @Value("${outbox.archive.retention-days}")
+    private long retentionDays;
+
+    @Value("${outbox.archive.chunk-size}")
+    private int chunkSize;
+
+    @Value("${outbox.archive.pause-ms}")
+    private long pauseMs;
+
+    @Autowired
+    public OutboxArchiver(OutboxService _outboxService, MeterRegistry _meterRegistry) {
+        this.outboxService = _outboxService;
+        this.archivedRows = Counter.builder("outbox.archive.rows").description("Outbox rows moved to history").register(_meterRegistry);
+        Gauge.builder("outbox.archive.backlog", backlog, AtomicLong::get).description("Finished outbox rows past retention still in the hot table").register(_meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.archive.interval-ms}")
+    public void archiveFinishedEvents() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        long started = System.nanoTime();
+        long archived = 0;
+        try {
+            List<Long> chunk;
+            long lastSeenId = 0;
+            do {
+                chunk = outboxService.archiveFinishedEvents(lastSeenId, cutoff, chunkSize);
+                if (!chunk.isEmpty()) {
+                    lastSeenId = chunk.getLast();
+                    archived += chunk.size();
+                    archivedRows.increment(chunk.size());
+                    TimeUnit.MILLISECONDS.sleep(pauseMs);
+                }
+            } while (chunk.size() == chunkSize);
+            backlog.set(outboxService.countArchivableEvents(cutoff));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (Exception exception) {
+            LOG.error("Archiving failed! {}", exception.getMessage(), exception);
+        }
+        if (archived > 0) {
+            double seconds = (System.nanoTime() - started) / 1_000_000_000d;
+            LOG.info("Archived {} outbox rows in {}s ({} rows/s), {} left past retention", archived, String.format("%.1f", seconds), Math.round(archived / seconds), backlog.get());
+        }
+    }
+}
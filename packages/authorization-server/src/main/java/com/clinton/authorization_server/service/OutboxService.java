@@ -0,0 +1,139 @@
+package com.clinton.authorization_server.service;
+
+import com.clinton.authorization_server.model.EventType;
+import com.clinton.authorization_server.model.Outbox;
+import com.clinton.authorization_server.model.OutboxMessage;
+import com.clinton.authorization_server.model.RetryPolicy;
+import com.clinton.authorization_server.model.Status;
+import com.clinton.authorization_server.repository.OutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Clinton Fernandes
+ */
+@Service
+@Profile({"auth", "polling"})
+public class OutboxService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxService.class);
+
+    private static final int MAX_ERROR_LENGTH = 512;
+
+    private final OutboxRepository outboxRepository;
+
+    @Autowired
+    public OutboxService(OutboxRepository _outboxRepository) {
+        this.outboxRepository = _outboxRepository;
+    }
+
+    /**
+     * Moves up to {@code chunkSize} authorized rows of {@code eventType} in {@code partitions} with an id above {@code afterId} to
+     * {@link Status#IN_FLIGHT} under a lease owned by {@code owner}, in id order. Rows locked by another relay are
+     * skipped, and the row locks are released on commit, so the lease is what keeps other relays away while publishing.
+     * The payloads are read in the same transaction, so publishing needs no further query.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
+    public List<OutboxMessage> claimAuthorizedEvents(EventType eventType, List<Integer> partitions, String owner, long afterId, int chunkSize, Duration leaseDuration) {
+        List<Long> claimed = outboxRepository.findClaimableEvents(eventType.name(), partitions, afterId, chunkSize);
+        if (claimed.isEmpty()) {
+            return List.of();
+        }
+        outboxRepository.lease(claimed, owner, LocalDateTime.now().plus(leaseDuration));
+        return outboxRepository.findMessages(claimed);
+    }
+
+    /**
+     * Hands {@link Status#IN_FLIGHT} rows whose lease ran out back to {@link Status#AUTHORIZED}: claims from a relay
+     * that died mid-publish, and failed rows whose retry backoff is over.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
+    public int releaseExpiredLeases() {
+        return outboxRepository.releaseExpiredLeases(LocalDateTime.now());
+    }
+
+    /**
+     * Only rows still leased to {@code owner} are marked, so a row the consumer already moved on, or that another
+     * relay took over after the lease expired, is left alone.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
+    public void markPublished(List<Long> outboxIds, String owner) {
+        outboxRepository.markPublished(outboxIds, owner, LocalDateTime.now());
+    }
+
+    /**
+     * Counts a failed publish against each row. Rows with attempts left stay {@link Status#IN_FLIGHT} with their
+     * lease pushed out by the retry backoff; rows that have used up {@code retryPolicy.maxAttempts()} are parked as
+     * {@link Status#DEAD} so they stop taking relay capacity.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
+    public void recordPublishFailures(Map<Long, String> failures, String owner, RetryPolicy retryPolicy) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Outbox outbox : outboxRepository.findAllById(failures.keySet())) {
+            int publishAttempts = outbox.getPublishAttempts() + 1;
+            String lastError = failures.get(outbox.getId());
+            if (lastError != null && lastError.length() > MAX_ERROR_LENGTH) {
+                lastError = lastError.substring(0, MAX_ERROR_LENGTH);
+            }
+            if (retryPolicy.exhausted(publishAttempts)) {
+                LOG.error("Parking outbox entry {} after {} attempts: {}", outbox.getId(), publishAttempts, lastError);
+                outboxRepository.recordPublishFailure(outbox.getId(), owner, publishAttempts, lastError, null, Status.DEAD);
+            } else {
+                outboxRepository.recordPublishFailure(outbox.getId(), owner, publishAttempts, lastError, now.plus(retryPolicy.delay(publishAttempts)), Status.IN_FLIGHT);
+            }
+        }
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public Map<Status, Long> countByStatus() {
+        Map<Status, Long> counts = new EnumMap<>(Status.class);
+        for (Object[] row : outboxRepository.countByStatus()) {
+            if (row[0] != null) {
+                counts.put((Status) row[0], (Long) row[1]);
+            }
+        }
+        return counts;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public LocalDateTime getOldestUnpublishedCreatedAt() {
+        return outboxRepository.findOldestUnpublishedCreatedAt();
+    }
+
+    /**
+     * Moves one chunk of finished rows created before {@code cutoff}, with an id above {@code afterId}, and their
+     * authorizations into the history tables. Rows another transaction holds are skipped rather than waited on, so
+     * the archiver never queues behind an authorization or the relay.
+     *
+     * @return the archived outbox ids, in id order
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
+    public List<Long> archiveFinishedEvents(long afterId, LocalDateTime cutoff, int chunkSize) {
+        List<Long> archivable = outboxRepository.findArchivableEvents(afterId, cutoff, chunkSize);
+        if (!archivable.isEmpty()) {
+            LocalDateTime archivedAt = LocalDateTime.now();
+            outboxRepository.copyAuthorizationsToHistory(archivable, archivedAt);
+            outboxRepository.copyEventsToHistory(archivable, archivedAt);
+            outboxRepository.deleteAuthorizations(archivable);
+            outboxRepository.deleteEvents(archivable);
+        }
+        return archivable;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public long countArchivableEvents(LocalDateTime cutoff) {
+        return outboxRepository.countArchivableEvents(cutoff);
+    }
+}
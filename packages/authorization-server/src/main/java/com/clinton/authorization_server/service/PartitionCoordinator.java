@@ -0,0 +1,106 @@
+package com.clinton.authorization_server.service;
+
+import com.clinton.authorization_server.repository.RelayInstanceRepository;
+import com.clinton.authorization_server.repository.RelayPartitionLeaseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Splits the outbox relay partitions between the running polling instances. Every heartbeat an instance records
+ * itself in {@code relay_instance}, works out its fair share from the number of live instances, renews the
+ * partitions it holds, hands back any above its share and picks up free or expired ones below it. Instances that
+ * stop heartbeating lose their partitions once the lease runs out, so the rest take them over.
+ *
+ * @author Clinton Fernandes
+ */
+@Service
+@Profile("polling")
+public class PartitionCoordinator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PartitionCoordinator.class);
+
+    private final RelayInstanceRepository relayInstanceRepository;
+
+    private final RelayPartitionLeaseRepository relayPartitionLeaseRepository;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private volatile List<Integer> ownedPartitions = List.of();
+
+    private volatile int totalPartitions;
+
+    @Value("${outbox.relay.partition.lease-ms}")
+    private long leaseMs;
+
+    @Value("${outbox.relay.partition.instance-timeout-ms}")
+    private long instanceTimeoutMs;
+
+    @Autowired
+    public PartitionCoordinator(RelayInstanceRepository _relayInstanceRepository, RelayPartitionLeaseRepository _relayPartitionLeaseRepository) {
+        this.relayInstanceRepository = _relayInstanceRepository;
+        this.relayPartitionLeaseRepository = _relayPartitionLeaseRepository;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.partition.heartbeat-ms}")
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
+    public void rebalance() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusNanos(leaseMs * 1_000_000);
+        relayInstanceRepository.heartbeat(instanceId, now);
+        relayInstanceRepository.deleteStale(now.minusNanos(instanceTimeoutMs * 1_000_000));
+        long liveInstances = Math.max(1, relayInstanceRepository.countLive(now.minusNanos(instanceTimeoutMs * 1_000_000)));
+        totalPartitions = (int) relayPartitionLeaseRepository.count();
+        int fairShare = (int) ((totalPartitions + liveInstances - 1) / liveInstances);
+
+        relayPartitionLeaseRepository.renew(instanceId, now, leaseUntil);
+        List<Integer> owned = relayPartitionLeaseRepository.findOwned(instanceId, now);
+        if (owned.size() > fairShare) {
+            relayPartitionLeaseRepository.release(instanceId, owned.subList(fairShare, owned.size()));
+        } else if (owned.size() < fairShare) {
+            relayPartitionLeaseRepository.acquire(instanceId, now, leaseUntil, fairShare - owned.size());
+        }
+        List<Integer> rebalanced = relayPartitionLeaseRepository.findOwned(instanceId, now);
+        if (!rebalanced.equals(ownedPartitions)) {
+            LOG.info("Relay instance {} now owns partitions {} of {} across {} instances", instanceId, rebalanced, totalPartitions, liveInstances);
+        }
+        ownedPartitions = rebalanced;
+    }
+
+    /**
+     * Gives the partitions back on a clean shutdown so the other instances pick them up on their next heartbeat
+     * instead of waiting for the lease to expire.
+     */
+    @EventListener(ContextClosedEvent.class)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
+    public void resign() {
+        ownedPartitions = List.of();
+        relayPartitionLeaseRepository.releaseAll(instanceId);
+        relayInstanceRepository.deleteById(instanceId);
+    }
+
+    /**
+     * Partitions this instance may relay. Read once per pass: a partition can move between passes, and rows already
+     * claimed from it stay guarded by their own lease.
+     */
+    public List<Integer> getOwnedPartitions() {
+        return ownedPartitions;
+    }
+
+    public int getTotalPartitions() {
+        return totalPartitions;
+    }
+}
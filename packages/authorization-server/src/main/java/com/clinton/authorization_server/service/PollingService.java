@@ -1,17 +1,23 @@
 package com.clinton.authorization_server.service;
 
-import com.clinton.authorization_server.repository.AuthorizationRepository;
+import com.clinton.authorization_server.model.EventType;
+import com.clinton.authorization_server.model.OutboxMessage;
+import com.clinton.authorization_server.model.PublishResult;
+import com.clinton.authorization_server.model.RetryPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Clinton Fernandes
@@ -23,33 +29,77 @@ public class PollingService {
 
     private static final Logger LOG = LoggerFactory.getLogger(PollingService.class);
 
-    private final AuthorizationRepository authorizationRepository;
+    private final OutboxService outboxService;
 
     private final SendMessageToSQS sendMessageToSQS;
 
+    private final PartitionCoordinator partitionCoordinator;
+
+    private final String relayId = UUID.randomUUID().toString();
+
+    private final RetryPolicy publishRetryPolicy;
+
+    @Value("${outbox.relay.chunk-size}")
+    private int chunkSize;
+
+    @Value("${outbox.relay.lease-duration-ms}")
+    private long leaseDurationMs;
+
     @Autowired
-    public PollingService(AuthorizationRepository _authorizationRepository, SendMessageToSQS _sendMessageToSQS) {
-        this.authorizationRepository = _authorizationRepository;
+    public PollingService(OutboxService _outboxService, SendMessageToSQS _sendMessageToSQS, PartitionCoordinator _partitionCoordinator, @Value("${outbox.relay.max-publish-attempts}") int maxPublishAttempts, @Value("${outbox.relay.retry-base-delay-ms}") long retryBaseDelayMs, @Value("${outbox.relay.retry-max-delay-ms}") long retryMaxDelayMs) {
+        this.outboxService = _outboxService;
         this.sendMessageToSQS = _sendMessageToSQS;
+        this.partitionCoordinator = _partitionCoordinator;
+        this.publishRetryPolicy = new RetryPolicy(maxPublishAttempts, Duration.ofMillis(retryBaseDelayMs), Duration.ofMillis(retryMaxDelayMs));
     }
 
-    @Scheduled(cron = "0 */15 * * * ?")
+    /**
+     * Drains the outbox chunk by chunk while full chunks keep coming back; the fixed delay is only paid once the
+     * relay has caught up. Each pass walks the outbox with a keyset cursor, so memory and per-chunk query cost stay
+     * flat however large the backlog is. Chunks are pipelined: the next chunk is claimed while earlier ones are still
+     * in flight, and the sender blocks the loop once its in-flight window is full. Only the relay partitions this
+     * instance holds are drained, so running more polling instances adds relay throughput.
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.idle-backoff-ms}")
     public void pollOutboxAndSendToSqs() {
-        LOG.info("Starting polling execution...");
+        Deque<CompletableFuture<PublishResult>> inFlightChunks = new ArrayDeque<>();
         try {
-            List<Long> authorizedTransactions = this.getAllAuthorizedTransactionsFromDB();
-            LOG.info("Found entries " + authorizedTransactions.size());
-            if (!authorizedTransactions.isEmpty()) {
-                sendMessageToSQS.sendMessageInBatch(authorizedTransactions);
+            int released = outboxService.releaseExpiredLeases();
+            if (released > 0) {
+                LOG.info("Released {} expired leases", released);
+            }
+            List<Integer> partitions = partitionCoordinator.getOwnedPartitions();
+            if (partitions.isEmpty()) {
+                return;
+            }
+            List<OutboxMessage> authorizedTransactions;
+            long lastSeenId = 0;
+            do {
+                authorizedTransactions = outboxService.claimAuthorizedEvents(EventType.PAYMENT, partitions, relayId, lastSeenId, chunkSize, Duration.ofMillis(leaseDurationMs));
+                if (!authorizedTransactions.isEmpty()) {
+                    lastSeenId = authorizedTransactions.getLast().id();
+                    LOG.debug("Claimed {} entries up to id {}", authorizedTransactions.size(), lastSeenId);
+                    inFlightChunks.add(sendMessageToSQS.sendMessageInBatch(authorizedTransactions));
+                }
+                while (!inFlightChunks.isEmpty() && inFlightChunks.peek().isDone()) {
+                    this.recordPublishResult(inFlightChunks.poll().join());
+                }
+            } while (authorizedTransactions.size() == chunkSize);
+            while (!inFlightChunks.isEmpty()) {
+                this.recordPublishResult(inFlightChunks.poll().join());
             }
         } catch (Exception exception) {
-            LOG.error("Polling failed! ", exception.getMessage(), exception);
+            LOG.error("Polling failed! {}", exception.getMessage(), exception);
             throw new RuntimeException();
         }
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.SERIALIZABLE)
-    private List<Long> getAllAuthorizedTransactionsFromDB() {
-        return authorizationRepository.getAuthorizedTransactions();
+    private void recordPublishResult(PublishResult publishResult) {
+        if (!publishResult.published().isEmpty()) {
+            outboxService.markPublished(publishResult.published(), relayId);
+        }
+        if (!publishResult.failed().isEmpty()) {
+            outboxService.recordPublishFailures(publishResult.failed(), relayId, publishRetryPolicy);
+        }
     }
 }
@@ -1,79 +1,270 @@
 package com.clinton.authorization_server.service;
 
+import com.clinton.authorization_server.aop.LogSampler;
+import com.clinton.authorization_server.model.OutboxMessage;
+import com.clinton.authorization_server.model.PublishResult;
+import com.clinton.authorization_server.model.RetryPolicy;
 import com.clinton.authorization_server.model.SQSClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.model.*;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Clinton Fernandes
  */
 @Service
-@Profile("polling")
+@Profile({"auth", "polling"})
 public class SendMessageToSQS {
 
     private static final Logger LOG = LoggerFactory.getLogger(SendMessageToSQS.class);
 
-    private final SqsClient sqsClient;
+    private static final int MAX_BATCH_SIZE = 10;
+
+    private static final int MAX_REQUEST_BYTES = 256 * 1024;
+
+    private static final int ATTRIBUTE_BYTES = 64;
+
+    private static final int ENVELOPE_SCHEMA_VERSION = 1;
+
+    private static final int ENVELOPE_BYTES = "{\"schemaVersion\":1,\"ids\":[],\"events\":[]}".length();
+
+    static final String OUTBOX_ID_ATTRIBUTE = "outboxId";
+
+    static final String PACKED_COUNT_ATTRIBUTE = "packedCount";
+
+    private final SqsAsyncClient sqsAsyncClient;
+
+    private final Semaphore inFlightBatches;
+
+    private final RetryPolicy batchRetryPolicy;
+
+    private final MeterRegistry meterRegistry;
 
     @Value("${POLLING.QUEUE.URL}")
     private String queueUrl;
 
+    @Value("${logging.per-message.sample-rate}")
+    private int logSampleRate;
+
+    @Value("${outbox.relay.packing.enabled}")
+    private boolean packingEnabled;
+
+    @Value("${outbox.relay.packing.max-message-bytes}")
+    private int maxMessageBytes;
+
     @Autowired
-    public SendMessageToSQS(SQSClient _sqsClient) {
-        this.sqsClient = _sqsClient.getSqsClient();
+    public SendMessageToSQS(SQSClient _sqsClient, MeterRegistry _meterRegistry, @Value("${outbox.relay.max-in-flight-batches}") int maxInFlightBatches, @Value("${outbox.relay.batch-attempts}") int batchAttempts, @Value("${outbox.relay.batch-retry-base-delay-ms}") long batchRetryBaseDelayMs, @Value("${outbox.relay.batch-retry-max-delay-ms}") long batchRetryMaxDelayMs) {
+        this.sqsAsyncClient = _sqsClient.getSqsAsyncClient();
+        this.meterRegistry = _meterRegistry;
+        this.inFlightBatches = new Semaphore(maxInFlightBatches);
+        this.batchRetryPolicy = new RetryPolicy(batchAttempts, Duration.ofMillis(batchRetryBaseDelayMs), Duration.ofMillis(batchRetryMaxDelayMs));
     }
 
-    public void sendMessageInBatch(List<Long> authorizedTransactions) {
-        List<SendMessageBatchRequestEntry> entries = new ArrayList<>();
-        for (int i = 0; i < authorizedTransactions.size(); i++) {
-            entries.add((SendMessageBatchRequestEntry.builder().id(UUID.randomUUID().toString()).messageBody(String.valueOf(authorizedTransactions.get(i))).build()));
-            if ((i+1) % 10 == 0) {
-                this.sendMessagesBatch(entries);
-                entries = new ArrayList<>();
+    /**
+     * Sends the outbox rows in batches of ten without waiting for the responses. At most
+     * {@code outbox.relay.max-in-flight-batches} batches are outstanding at once; once that window is full this
+     * call blocks, which keeps the outbox reader from running ahead of SQS. A batch keeps its slot while its failed
+     * entries are being retried, so throttling slows the reader down instead of piling up more requests. With
+     * {@code outbox.relay.packing.enabled} each message carries as many rows as fit in
+     * {@code outbox.relay.packing.max-message-bytes}, and a batch is also cut short at the SQS request size limit.
+     */
+    public CompletableFuture<PublishResult> sendMessageInBatch(List<OutboxMessage> authorizedTransactions) throws InterruptedException {
+        List<Envelope> envelopes = toEnvelopes(authorizedTransactions, packingEnabled ? Math.min(maxMessageBytes, MAX_REQUEST_BYTES - ATTRIBUTE_BYTES) : 0);
+        List<CompletableFuture<PublishResult>> batches = new ArrayList<>();
+        int from = 0;
+        while (from < envelopes.size()) {
+            int to = from + 1;
+            int requestBytes = envelopes.get(from).bytes();
+            while (to < envelopes.size() && to - from < MAX_BATCH_SIZE && requestBytes + envelopes.get(to).bytes() <= MAX_REQUEST_BYTES) {
+                requestBytes += envelopes.get(to++).bytes();
             }
+            inFlightBatches.acquire();
+            batches.add(this.sendMessagesBatch(envelopes.subList(from, to), 1).whenComplete((result, throwable) -> inFlightBatches.release()));
+            from = to;
         }
-        if (!entries.isEmpty()) {
-            this.sendMessagesBatch(entries);
-        }
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).thenApply((ignored) -> batches.stream().map(CompletableFuture::join).reduce(new PublishResult(List.of(), Map.of()), PublishResult::merge));
     }
 
-    @Async
-    private void sendMessagesBatch(List<SendMessageBatchRequestEntry> entries) {
-        List<SendMessageBatchResultEntry> successfulEntries;
-        List<BatchResultErrorEntry> failedEntries;
-        entries.forEach((entry) -> {
-            LOG.info("ID: " + entry.id() + " Transaction: " + entry.messageBody());
-        });
+    /**
+     * Sends one batch and retries only the entries that failed, with jittered exponential backoff, until
+     * {@code outbox.relay.batch-attempts} is used up. Entries SQS rejected as a sender fault are not retried.
+     */
+    private CompletableFuture<PublishResult> sendMessagesBatch(List<Envelope> envelopes, int attempt) {
+        List<SendMessageBatchRequestEntry> entries = toBatchEntries(envelopes);
+        CompletableFuture<SendMessageBatchResponse> response;
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
             SendMessageBatchRequest sendMessageBatchRequest = SendMessageBatchRequest.builder().queueUrl(queueUrl).entries(entries).build();
-            SendMessageBatchResponse sendMessageBatchResponse = sqsClient.sendMessageBatch(sendMessageBatchRequest);
-            if (sendMessageBatchResponse.hasSuccessful()) {
-                successfulEntries = sendMessageBatchResponse.successful();
-                LOG.info("Processed below entries: ");
-                successfulEntries.forEach((entry) -> {
-                    LOG.info(entry.messageId());
-                });
+            response = sqsAsyncClient.sendMessageBatch(sendMessageBatchRequest);
+        } catch (Exception exception) {
+            response = CompletableFuture.failedFuture(exception);
+        }
+        return response.handle((sendMessageBatchResponse, throwable) -> {
+            sample.stop(Timer.builder("outbox.relay.sqs.batch").description("SendMessageBatch round trip").tag("result", throwable == null ? "success" : "failure").publishPercentileHistogram().register(meterRegistry));
+            BatchAttempt batchAttempt = this.toBatchAttempt(envelopes, sendMessageBatchResponse, throwable);
+            Counter.builder("outbox.relay.sqs.entries").tag("result", "success").register(meterRegistry).increment(batchAttempt.result().published().size());
+            Counter.builder("outbox.relay.sqs.entries").tag("result", "failure").register(meterRegistry).increment(batchAttempt.result().failed().size());
+            return batchAttempt;
+        }).thenCompose((batchAttempt) -> {
+            if (batchAttempt.retryable().isEmpty() || batchRetryPolicy.exhausted(attempt)) {
+                return CompletableFuture.completedFuture(batchAttempt.result());
             }
-            if (sendMessageBatchResponse.hasFailed()) {
-                failedEntries = sendMessageBatchResponse.failed();
-                LOG.info("Below entries failed: ");
-                failedEntries.forEach((entry) -> {
-                    LOG.info(entry.id() + " " + entry.message());
-                });
+            LOG.warn("Retrying {} entries after attempt {}: {}", batchAttempt.retryable().size(), attempt, batchAttempt.retryable().stream().map(Envelope::entryId).toList());
+            Map<Long, String> notRetried = new HashMap<>(batchAttempt.result().failed());
+            batchAttempt.retryable().forEach((envelope) -> envelope.messages().forEach((message) -> notRetried.remove(message.id())));
+            PublishResult settled = new PublishResult(batchAttempt.result().published(), notRetried);
+            Executor delayed = CompletableFuture.delayedExecutor(batchRetryPolicy.delay(attempt).toMillis(), TimeUnit.MILLISECONDS);
+            return CompletableFuture.supplyAsync(batchAttempt::retryable, delayed).thenCompose((retryable) -> this.sendMessagesBatch(retryable, attempt + 1)).thenApply(settled::merge);
+        });
+    }
+
+    /**
+     * Without packing ({@code maxMessageBytes} of 0) every row is its own message: the payload written with the
+     * authorization is the body, and the outbox id travels as the {@value #OUTBOX_ID_ATTRIBUTE} message attribute.
+     * Rows written before payloads existed fall back to the id as the body, which the consumer still resolves through
+     * the auth table. With packing, consecutive rows share one message whose body is the envelope
+     * {@code {"schemaVersion":1,"ids":[...],"events":[...]}}: the payloads are embedded as they are, not re-encoded,
+     * in the same order as the ids, with {@code null} for rows without a payload. A message that ends up with a
+     * single row, such as one too big to share, is sent unpacked.
+     */
+    static List<Envelope> toEnvelopes(List<OutboxMessage> messages, int maxMessageBytes) {
+        List<Envelope> envelopes = new ArrayList<>();
+        if (maxMessageBytes <= 0) {
+            messages.forEach((message) -> envelopes.add(toEnvelope(message)));
+            return envelopes;
+        }
+        int from = 0;
+        while (from < messages.size()) {
+            int to = from;
+            int bytes = ENVELOPE_BYTES;
+            while (to < messages.size()) {
+                OutboxMessage message = messages.get(to);
+                int messageBytes = utf8Length(String.valueOf(message.id())) + (message.payload() != null ? utf8Length(message.payload()) : 4) + 2;
+                if (to > from && bytes + messageBytes > maxMessageBytes) {
+                    break;
+                }
+                bytes += messageBytes;
+                to++;
             }
-        } catch (Exception exception) {
-            throw new RuntimeException(exception);
+            List<OutboxMessage> packed = messages.subList(from, to);
+            envelopes.add(packed.size() == 1 ? toEnvelope(packed.getFirst()) : new Envelope(String.valueOf(packed.getFirst().id()), List.copyOf(packed), toEnvelopeBody(packed), bytes + ATTRIBUTE_BYTES));
+            from = to;
         }
+        return envelopes;
+    }
+
+    private static Envelope toEnvelope(OutboxMessage message) {
+        String body = message.payload() != null ? message.payload() : String.valueOf(message.id());
+        return new Envelope(String.valueOf(message.id()), List.of(message), body, utf8Length(body) + ATTRIBUTE_BYTES);
+    }
+
+    private static String toEnvelopeBody(List<OutboxMessage> messages) {
+        StringBuilder ids = new StringBuilder("{\"schemaVersion\":").append(ENVELOPE_SCHEMA_VERSION).append(",\"ids\":[");
+        StringBuilder events = new StringBuilder("],\"events\":[");
+        for (int i = 0; i < messages.size(); i++) {
+            if (i > 0) {
+                ids.append(',');
+                events.append(',');
+            }
+            ids.append(messages.get(i).id());
+            events.append(messages.get(i).payload());
+        }
+        return ids.append(events).append("]}").toString();
+    }
+
+    static List<SendMessageBatchRequestEntry> toBatchEntries(List<Envelope> envelopes) {
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>(envelopes.size());
+        for (Envelope envelope : envelopes) {
+            MessageAttributeValue attribute = MessageAttributeValue.builder().dataType("Number").stringValue(envelope.messages().size() == 1 ? envelope.entryId() : String.valueOf(envelope.messages().size())).build();
+            entries.add(SendMessageBatchRequestEntry.builder().id(envelope.entryId()).messageBody(envelope.body()).messageAttributes(Map.of(envelope.messages().size() == 1 ? OUTBOX_ID_ATTRIBUTE : PACKED_COUNT_ATTRIBUTE, attribute)).build());
+        }
+        return entries;
+    }
+
+    /**
+     * utf-8 size of {@code value} without encoding it.
+     */
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800 || Character.isSurrogate(c)) {
+                length += 2;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private BatchAttempt toBatchAttempt(List<Envelope> envelopes, SendMessageBatchResponse sendMessageBatchResponse, Throwable throwable) {
+        List<Long> published = new ArrayList<>();
+        Map<Long, String> failed = new HashMap<>();
+        List<Envelope> retryable = new ArrayList<>();
+        if (throwable != null) {
+            LOG.error("Batch of {} entries failed: {}", envelopes.size(), envelopes.stream().map(Envelope::entryId).toList(), throwable);
+            envelopes.forEach((envelope) -> envelope.messages().forEach((message) -> failed.put(message.id(), String.valueOf(throwable.getMessage()))));
+            retryable.addAll(envelopes);
+            return new BatchAttempt(new PublishResult(published, failed), retryable);
+        }
+        Map<String, Envelope> byEntryId = new HashMap<>();
+        envelopes.forEach((envelope) -> byEntryId.put(envelope.entryId(), envelope));
+        if (sendMessageBatchResponse.hasSuccessful()) {
+            boolean sampled = LOG.isDebugEnabled() && LogSampler.sampled(logSampleRate);
+            DistributionSummary eventsPerMessage = DistributionSummary.builder("outbox.relay.sqs.message.events").description("Outbox rows packed into one SQS message").register(meterRegistry);
+            DistributionSummary messageBytes = DistributionSummary.builder("outbox.relay.sqs.message.bytes").description("SQS message body size").baseUnit("bytes").register(meterRegistry);
+            sendMessageBatchResponse.successful().forEach((entry) -> {
+                Envelope envelope = byEntryId.get(entry.id());
+                if (sampled) {
+                    LOG.debug("Published {} outbox entries from {} as message {}", envelope.messages().size(), entry.id(), entry.messageId());
+                }
+                eventsPerMessage.record(envelope.messages().size());
+                messageBytes.record(envelope.bytes());
+                envelope.messages().forEach((message) -> published.add(message.id()));
+            });
+        }
+        if (sendMessageBatchResponse.hasFailed()) {
+            sendMessageBatchResponse.failed().forEach((entry) -> {
+                Envelope envelope = byEntryId.get(entry.id());
+                envelope.messages().forEach((message) -> failed.put(message.id(), entry.code() + ": " + entry.message()));
+                if (!Boolean.TRUE.equals(entry.senderFault())) {
+                    retryable.add(envelope);
+                }
+            });
+        }
+        if (!failed.isEmpty()) {
+            LOG.warn("Batch of {} entries had {} failures: {}", envelopes.size(), failed.size(), failed);
+        }
+        return new BatchAttempt(new PublishResult(published, failed), retryable);
+    }
+
+    /**
+     * One SQS message: the rows it carries, its body and roughly how much of the request size limit it takes.
+     */
+    record Envelope(String entryId, List<OutboxMessage> messages, String body, int bytes) {
+    }
+
+    private record BatchAttempt(PublishResult result, List<Envelope> retryable) {
     }
 }
@@ -1,7 +1,10 @@
 package com.clinton.authorization_server.service;
 
 
+import com.clinton.authorization_server.aop.LogSampler;
 import com.clinton.authorization_server.model.SESClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,24 +19,30 @@ import software.amazon.awssdk.services.ses.model.SendEmailResponse;
  * @author Clinton Fernandes
  */
 @Service
-@Profile("auth")
+@Profile("polling")
 public class SendNotificationToSES {
 
     private static final Logger LOG = LoggerFactory.getLogger(SendNotificationToSES.class);
 
     private final SesClient sesClient;
 
+    private final MeterRegistry meterRegistry;
+
     @Value("${SENDER.EMAIL}")
     private String senderEmail;
 
+    @Value("${logging.per-message.sample-rate}")
+    private int logSampleRate;
+
     @Autowired
-    public SendNotificationToSES(SESClient _sesClient) {
+    public SendNotificationToSES(SESClient _sesClient, MeterRegistry _meterRegistry) {
         this.sesClient = _sesClient.getSESClient();
+        this.meterRegistry = _meterRegistry;
     }
 
     public void sendNotification(String recipientEmail, String recipientName) {
-        LOG.info("Sending notification to " + recipientEmail);
-
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "failure";
         try {
             String subjectText = "Payment Authorized!";
             String bodyText = "Hello " + recipientName + ",\n\nYour payment has been authorized and will be cleared soon.\n\nThanks and Regards,\n\nClinton Fernandes";
@@ -42,10 +51,15 @@ public class SendNotificationToSES {
 
             SendEmailResponse response = sesClient.sendEmail(request);
 
-            LOG.info("Email sent! Message ID: " + response.messageId());
+            if (LOG.isDebugEnabled() && LogSampler.sampled(logSampleRate)) {
+                LOG.debug("Email sent! Message ID: {}", response.messageId());
+            }
+            result = "success";
         } catch (Exception e) {
-            LOG.error(e.getMessage(), e);
-            throw new RuntimeException();
+            LOG.error("Sending notification failed: {}", e.getMessage(), e);
+            throw new RuntimeException(e.getMessage(), e);
+        } finally {
+            sample.stop(Timer.builder("notification.ses.send").description("SES SendEmail round trip").tag("result", result).publishPercentileHistogram().register(meterRegistry));
         }
     }
 }
@@ -0,0 +1,14 @@
+-- Relay and dispatcher state on outbox rows: the event type, the payload, the lease, publish attempts and timestamps.
+-- Rows from before have no event type and are payments.
+ALTER TABLE outbox
+    ADD COLUMN event_type       VARCHAR(16) NOT NULL DEFAULT 'PAYMENT',
+    ADD COLUMN payload          TEXT,
+    ADD COLUMN lease_owner      VARCHAR(255),
+    ADD COLUMN lease_until      DATETIME(6),
+    ADD COLUMN publish_attempts INT         NOT NULL DEFAULT 0,
+    ADD COLUMN last_error       VARCHAR(512),
+    ADD COLUMN published_at     DATETIME(6),
+    ADD COLUMN created_at       DATETIME(6);
+
+-- Keyset claim of one event type's AUTHORIZED rows
+CREATE INDEX idx_outbox_event_type_status_id ON outbox (event_type, status, id);
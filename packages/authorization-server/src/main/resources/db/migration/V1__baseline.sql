@@ -0,0 +1,35 @@
+-- Schema as hibernate ddl-auto=update built it for the entities of the original tree, which is what production runs
+-- on. Databases created that way are baselined at this version instead of running it; everything added since comes
+-- in the later migrations. ddl-auto named the auth unique and foreign keys with generated names; nothing refers to
+-- them by name.
+
+CREATE TABLE account
+(
+    account_number  INT NOT NULL AUTO_INCREMENT,
+    account_balance DECIMAL(38, 2),
+    account_name    VARCHAR(255),
+    account_type    VARCHAR(255),
+    phone_number    VARCHAR(255),
+    reserved_amount DECIMAL(38, 2),
+    PRIMARY KEY (account_number)
+) ENGINE = InnoDB;
+
+CREATE TABLE outbox
+(
+    id     BIGINT NOT NULL AUTO_INCREMENT,
+    status ENUM ('AUTHORIZED','DECLINED','PENDING','COMPLETED'),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE auth
+(
+    id                  BIGINT NOT NULL AUTO_INCREMENT,
+    amount              DECIMAL(38, 2),
+    receiver_account_id INT,
+    sender_account_id   INT,
+    timestamp           DATETIME(6),
+    outbox_id           BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_auth_outbox_id UNIQUE (outbox_id),
+    CONSTRAINT fk_auth_outbox FOREIGN KEY (outbox_id) REFERENCES outbox (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,28 @@
+-- ddl-auto created status as a MySQL ENUM and never added the relay states to it; store it as a string
+ALTER TABLE outbox
+    MODIFY status VARCHAR(16);
+
+-- Lease sweep (status = IN_FLIGHT AND lease_until < now) and the per-status backlog count
+CREATE INDEX idx_outbox_status_lease_until ON outbox (status, lease_until);
+
+-- Age of the oldest AUTHORIZED / IN_FLIGHT row
+CREATE INDEX idx_outbox_status_created_at ON outbox (status, created_at);
+
+-- A sender's authorizations, newest first
+CREATE INDEX idx_auth_sender_account_id_timestamp ON auth (sender_account_id, timestamp);
+
+-- The baseline schema has no sequence tables. The pooled optimizer hands out the block ending at the
+-- value it reads, so the next value has to sit a full allocation (50) above the highest id already taken.
+CREATE TABLE IF NOT EXISTS auth_seq
+(
+    next_val BIGINT
+) ENGINE = InnoDB;
+DELETE FROM auth_seq;
+INSERT INTO auth_seq SELECT COALESCE(MAX(id), 0) + 51 FROM auth;
+
+CREATE TABLE IF NOT EXISTS outbox_seq
+(
+    next_val BIGINT
+) ENGINE = InnoDB;
+DELETE FROM outbox_seq;
+INSERT INTO outbox_seq SELECT COALESCE(MAX(id), 0) + 51 FROM outbox;
@@ -0,0 +1,12 @@
+-- ddl-auto made the ids AUTO_INCREMENT; they now come from outbox_seq and auth_seq. MySQL does not allow a generated
+-- column over an AUTO_INCREMENT column, so the relay partition in V4 needs this first. Only the AUTO_INCREMENT
+-- attribute changes, the column type stays, so auth's foreign key to outbox is unaffected.
+SET FOREIGN_KEY_CHECKS = 0;
+
+ALTER TABLE outbox
+    MODIFY id BIGINT NOT NULL;
+
+ALTER TABLE auth
+    MODIFY id BIGINT NOT NULL;
+
+SET FOREIGN_KEY_CHECKS = 1;
@@ -0,0 +1,29 @@
+-- Finished rows are moved here by the archiver so the hot tables only hold work in progress.
+-- No foreign keys or secondary indexes beyond what lookups by id need: these tables are written in bulk and rarely read.
+
+CREATE TABLE outbox_history
+(
+    id               BIGINT      NOT NULL,
+    event_type       VARCHAR(16) NOT NULL,
+    status           VARCHAR(16),
+    payload          TEXT,
+    publish_attempts INT         NOT NULL,
+    last_error       VARCHAR(512),
+    published_at     DATETIME(6),
+    created_at       DATETIME(6),
+    archived_at      DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE auth_history
+(
+    id                  BIGINT      NOT NULL,
+    sender_account_id   INT,
+    receiver_account_id INT,
+    amount              DECIMAL(38, 2),
+    timestamp           DATETIME(6),
+    outbox_id           BIGINT,
+    archived_at         DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_auth_history_outbox_id (outbox_id)
+) ENGINE = InnoDB;
@@ -0,0 +1,26 @@
+-- Outbox rows are spread over 16 logical relay partitions by id; relay instances lease whole partitions.
+-- Changing the count means a new migration for the column and the lease rows.
+ALTER TABLE outbox
+    ADD COLUMN relay_partition INT GENERATED ALWAYS AS (id % 16) STORED;
+
+-- Claims filter on event type, status and the instance's partitions, then walk ids
+CREATE INDEX idx_outbox_event_type_status_partition_id ON outbox (event_type, status, relay_partition, id);
+DROP INDEX idx_outbox_event_type_status_id ON outbox;
+
+CREATE TABLE relay_partition_lease
+(
+    partition_id INT NOT NULL,
+    lease_owner  VARCHAR(64),
+    lease_until  DATETIME(6),
+    PRIMARY KEY (partition_id)
+) ENGINE = InnoDB;
+
+INSERT INTO relay_partition_lease (partition_id)
+VALUES (0), (1), (2), (3), (4), (5), (6), (7), (8), (9), (10), (11), (12), (13), (14), (15);
+
+CREATE TABLE relay_instance
+(
+    instance_id  VARCHAR(64) NOT NULL,
+    heartbeat_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (instance_id)
+) ENGINE = InnoDB;
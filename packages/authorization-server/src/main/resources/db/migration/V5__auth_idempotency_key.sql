@@ -0,0 +1,8 @@
+-- Idempotency-Key of the request that created the authorization; the unique key makes a retry that races the
+-- original on another instance fail instead of reserving the amount twice. NULLs do not collide.
+ALTER TABLE auth
+    ADD COLUMN idempotency_key VARCHAR(64) NULL,
+    ADD CONSTRAINT uk_auth_idempotency_key UNIQUE (idempotency_key);
+
+ALTER TABLE auth_history
+    ADD COLUMN idempotency_key VARCHAR(64) NULL;
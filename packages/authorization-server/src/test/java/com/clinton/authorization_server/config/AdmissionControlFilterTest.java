@@ -0,0 +1,60 @@
+package com.clinton.authorization_server.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Clinton Fernandes
+ */
+class AdmissionControlFilterTest {
+
+    @Test
+    public void rejectsRequestsOverTheLimitWithRetryAfter() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdmissionControlFilter filter = new AdmissionControlFilter(meterRegistry, 1, 1, 1, 60000, 0.9);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "retryAfterSeconds", 2);
+        MockHttpServletResponse overflow = new MockHttpServletResponse();
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/authorize/"), admitted, (request, response) -> filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/account/credit/1/10"), overflow, (ignored, unused) -> {
+        }));
+
+        assertEquals(200, admitted.getStatus());
+        assertEquals(503, overflow.getStatus());
+        assertEquals("2", overflow.getHeader("Retry-After"));
+        assertEquals(1.0, meterRegistry.get("admission.requests").tag("result", "rejected").counter().count());
+        assertEquals(0.0, meterRegistry.get("admission.in.flight").gauge().value());
+    }
+
+    @Test
+    public void backsOffOncePerSlowSpellAndGrowsBackWhileInUse() {
+        AdmissionLimit admissionLimit = new AdmissionLimit(10, 2, 20, 1000, 0.5);
+        long start = System.nanoTime();
+
+        assertTrue(admissionLimit.tryAcquire());
+        assertTrue(admissionLimit.tryAcquire());
+        admissionLimit.release(start + 1, start + 5000, false);
+        admissionLimit.release(start + 1, start + 6000, true);
+        assertEquals(5, admissionLimit.getLimit());
+
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 5; i++) {
+                assertTrue(admissionLimit.tryAcquire());
+            }
+            assertFalse(admissionLimit.tryAcquire());
+            for (int i = 0; i < 5; i++) {
+                admissionLimit.release(start + 10000, start + 10500, false);
+            }
+        }
+        assertEquals(6, admissionLimit.getLimit());
+        assertEquals(0, admissionLimit.getInFlight());
+    }
+}
@@ -0,0 +1,92 @@
+package com.clinton.authorization_server.config;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfiguration;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Two embedded MariaDB instances stand in for the primary and the replica; each holds a row naming itself.
+ *
+ * @author Clinton Fernandes
+ */
+class ReadReplicaRoutingDataSourceTest {
+
+    private static DB primary;
+    private static DB replica;
+    private static DataSource primaryDataSource;
+    private static DataSource replicaDataSource;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        DBConfiguration primaryConfiguration = DBConfigurationBuilder.newBuilder().setPort(0).build();
+        DBConfiguration replicaConfiguration = DBConfigurationBuilder.newBuilder().setPort(0).build();
+        primary = start(primaryConfiguration);
+        replica = start(replicaConfiguration);
+        primaryDataSource = new DriverManagerDataSource(primaryConfiguration.getURL("authorization"), "root", "");
+        replicaDataSource = new DriverManagerDataSource(replicaConfiguration.getURL("authorization"), "root", "");
+        for (Map.Entry<String, DataSource> database : Map.of("primary", primaryDataSource, "replica", replicaDataSource).entrySet()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database.getValue());
+            jdbcTemplate.execute("CREATE TABLE whoami (name VARCHAR(16))");
+            jdbcTemplate.update("INSERT INTO whoami VALUES (?)", database.getKey());
+        }
+    }
+
+    private static DB start(DBConfiguration configuration) throws Exception {
+        DB db = DB.newEmbeddedDB(configuration);
+        db.start();
+        db.createDB("authorization");
+        return db;
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        primary.stop();
+        replica.stop();
+    }
+
+    private static String whoami(ReplicaLagMonitor replicaLagMonitor, boolean readOnly) {
+        ReadReplicaRoutingDataSource routingDataSource = new ReadReplicaRoutingDataSource(replicaLagMonitor);
+        routingDataSource.setTargetDataSources(Map.of(ReadReplicaRoutingDataSource.Route.PRIMARY, primaryDataSource, ReadReplicaRoutingDataSource.Route.REPLICA, replicaDataSource));
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute((status) -> new JdbcTemplate(dataSource).queryForObject("SELECT name FROM whoami", String.class));
+    }
+
+    @Test
+    public void readOnlyTransactionsGoToAHealthyReplica() {
+        ReplicaLagMonitor replicaLagMonitor = new ReplicaLagMonitor(replicaDataSource, new SimpleMeterRegistry(), 5000);
+        replicaLagMonitor.check();
+
+        assertEquals("replica", whoami(replicaLagMonitor, true));
+        assertEquals("primary", whoami(replicaLagMonitor, false));
+    }
+
+    @Test
+    public void readOnlyTransactionsFallBackToThePrimaryWhenTheReplicaIsUnreachable() {
+        ReplicaLagMonitor replicaLagMonitor = new ReplicaLagMonitor(new DriverManagerDataSource("jdbc:mysql://localhost:1/authorization", "root", ""), new SimpleMeterRegistry(), 5000);
+        replicaLagMonitor.check();
+
+        assertEquals("primary", whoami(replicaLagMonitor, true));
+    }
+
+    @Test
+    public void readOnlyTransactionsUseThePrimaryUntilTheReplicaWasChecked() {
+        assertEquals("primary", whoami(new ReplicaLagMonitor(replicaDataSource, new SimpleMeterRegistry(), 5000), true));
+    }
+}
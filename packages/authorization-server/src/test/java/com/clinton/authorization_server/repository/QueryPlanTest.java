@@ -0,0 +1,169 @@
+package com.clinton.authorization_server.repository;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfiguration;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Migrates an embedded MariaDB with the Flyway scripts, fills it with enough rows for the optimizer to prefer
+ * indexes, and fails if any hot query, ours or the clearance Lambda's, is planned as a full table scan. Also
+ * migrates a database built by ddl-auto on the original tree, the way production is upgraded.
+ *
+ * @author Clinton Fernandes
+ */
+class QueryPlanTest {
+
+    private static DB db;
+    private static DBConfiguration configuration;
+    private static String url;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        configuration = DBConfigurationBuilder.newBuilder().setPort(0).build();
+        db = DB.newEmbeddedDB(configuration);
+        db.start();
+        db.createDB("authorization");
+        url = configuration.getURL("authorization");
+        Flyway.configure().dataSource(url, "root", "").load().migrate();
+
+        try (Connection connection = DriverManager.getConnection(url, "root", "")) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement account = connection.prepareStatement("INSERT INTO account (account_name, account_type, account_balance, reserved_amount, phone_number) VALUES (?, 'savings', 1000, 0, ?)")) {
+                for (int n = 1; n <= 2000; n++) {
+                    account.setString(1, "account-" + n);
+                    account.setString(2, n + "@test");
+                    account.addBatch();
+                }
+                account.executeBatch();
+            }
+            try (PreparedStatement outbox = connection.prepareStatement("INSERT INTO outbox (id, event_type, status, publish_attempts, created_at) VALUES (?, ?, ?, 1, NOW() - INTERVAL ? SECOND)")) {
+                for (int n = 1; n <= 20000; n++) {
+                    outbox.setLong(1, n);
+                    outbox.setString(2, n % 2 == 0 ? "PAYMENT" : "NOTIFICATION");
+                    outbox.setString(3, switch (n % 100) {
+                        case 0 -> "AUTHORIZED";
+                        case 1 -> "IN_FLIGHT";
+                        case 2 -> "DEAD";
+                        default -> "COMPLETED";
+                    });
+                    outbox.setInt(4, n);
+                    outbox.addBatch();
+                }
+                outbox.executeBatch();
+            }
+            try (PreparedStatement auth = connection.prepareStatement("INSERT INTO auth (id, sender_account_id, receiver_account_id, amount, timestamp, outbox_id) VALUES (?, ?, ?, 10, NOW() - INTERVAL ? SECOND, ?)")) {
+                for (int n = 1; n <= 10000; n++) {
+                    auth.setLong(1, n);
+                    auth.setInt(2, n % 2000 + 1);
+                    auth.setInt(3, (n + 1) % 2000 + 1);
+                    auth.setInt(4, n);
+                    auth.setLong(5, n * 2L);
+                    auth.addBatch();
+                }
+                auth.executeBatch();
+            }
+            connection.commit();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE TABLE account, outbox, auth");
+            }
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        db.stop();
+    }
+
+    @Test
+    public void hotQueriesDoNotScanWholeTables() throws Exception {
+        Map<String, String> queries = new LinkedHashMap<>();
+        queries.put("OutboxRepository.findClaimableEvents", nativeQuery(OutboxRepository.class, "findClaimableEvents", String.class, List.class, long.class, int.class)
+                .replace(":eventType", "'PAYMENT'").replace(":partitions", "(0, 1, 2, 3)").replace(":afterId", "5000").replace(":limit", "100"));
+        queries.put("OutboxRepository.lease", "UPDATE outbox SET status = 'IN_FLIGHT', lease_owner = 'relay', lease_until = NOW() WHERE id IN (100, 200, 300)");
+        queries.put("OutboxRepository.releaseExpiredLeases", "UPDATE outbox SET status = 'AUTHORIZED', lease_owner = NULL, lease_until = NULL WHERE status = 'IN_FLIGHT' AND lease_until < NOW()");
+        queries.put("OutboxRepository.markPublished", "UPDATE outbox SET status = 'PUBLISHED', published_at = NOW(), publish_attempts = publish_attempts + 1, lease_owner = NULL, lease_until = NULL WHERE id IN (100, 200) AND lease_owner = 'relay' AND status = 'IN_FLIGHT'");
+        queries.put("OutboxRepository.countByStatus", "SELECT status, COUNT(*) FROM outbox GROUP BY status");
+        queries.put("OutboxRepository.findOldestUnpublishedCreatedAt", "SELECT MIN(created_at) FROM outbox WHERE status IN ('AUTHORIZED', 'IN_FLIGHT')");
+        queries.put("OutboxRepository.findArchivableEvents", nativeQuery(OutboxRepository.class, "findArchivableEvents", long.class, LocalDateTime.class, int.class)
+                .replace(":afterId", "0").replace(":cutoff", "NOW() - INTERVAL 1 HOUR").replace(":limit", "500"));
+        queries.put("OutboxRepository.countArchivableEvents", nativeQuery(OutboxRepository.class, "countArchivableEvents", LocalDateTime.class)
+                .replace(":cutoff", "NOW() - INTERVAL 1 HOUR"));
+        queries.put("AccountRepository.findContacts", "SELECT account_number, account_name, phone_number FROM account WHERE account_number IN (1, 2)");
+        queries.put("AccountRepository.reserveAmount", nativeQuery(AccountRepository.class, "reserveAmount", Integer.class, BigDecimal.class)
+                .replace(":accountNumber", "7").replace(":amount", "10"));
+        queries.put("auth by sender", "SELECT * FROM auth WHERE sender_account_id = 7 ORDER BY timestamp DESC LIMIT 20");
+        queries.put("clearance getTransactionSQL", "SELECT * FROM auth WHERE outbox_id = 200");
+        queries.put("clearance setStatus", "UPDATE outbox SET status = 'COMPLETED' WHERE id = 200");
+        queries.put("clearance claimClearanceSQL", "UPDATE outbox SET status = 'COMPLETED' WHERE id = 200 AND status <> 'COMPLETED'");
+
+        List<String> fullScans = new ArrayList<>();
+        try (Connection connection = DriverManager.getConnection(url, "root", ""); Statement statement = connection.createStatement()) {
+            for (Map.Entry<String, String> query : queries.entrySet()) {
+                try (ResultSet plan = statement.executeQuery("EXPLAIN " + query.getValue())) {
+                    while (plan.next()) {
+                        if ("ALL".equals(plan.getString("type"))) {
+                            fullScans.add(query.getKey() + " scans " + plan.getString("table"));
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(fullScans.isEmpty(), "Full table scans: " + fullScans);
+    }
+
+    @Test
+    public void migratesADatabaseBuiltByDdlAuto() throws Exception {
+        db.createDB("legacy");
+        String legacyUrl = configuration.getURL("legacy");
+        try (Connection connection = DriverManager.getConnection(legacyUrl, "root", ""); Statement statement = connection.createStatement()) {
+            statement.execute("create table account (account_number integer not null auto_increment, account_balance decimal(38,2), account_name varchar(255), account_type varchar(255), phone_number varchar(255), reserved_amount decimal(38,2), primary key (account_number)) engine=InnoDB");
+            statement.execute("create table outbox (id bigint not null auto_increment, status enum ('AUTHORIZED','DECLINED','PENDING','COMPLETED'), primary key (id)) engine=InnoDB");
+            statement.execute("create table auth (id bigint not null auto_increment, amount decimal(38,2), receiver_account_id integer, sender_account_id integer, timestamp datetime(6), outbox_id bigint, primary key (id)) engine=InnoDB");
+            statement.execute("alter table auth add constraint UK_5wmkxwwy4ao3v4cq9exn0ax5o unique (outbox_id)");
+            statement.execute("alter table auth add constraint FKr1wv6ylqoy30vwhtc2dwnbrh0 foreign key (outbox_id) references outbox (id)");
+            statement.execute("INSERT INTO account (account_name, account_type, account_balance, reserved_amount, phone_number) VALUES ('sender', 'savings', 1000, 40, 'sender@test'), ('receiver', 'savings', 0, 0, 'receiver@test')");
+            statement.execute("INSERT INTO outbox (status) VALUES ('COMPLETED'), ('AUTHORIZED')");
+            statement.execute("INSERT INTO auth (amount, receiver_account_id, sender_account_id, timestamp, outbox_id) VALUES (10, 2, 1, NOW(), 1), (40, 2, 1, NOW(), 2)");
+        }
+
+        Flyway.configure().dataSource(legacyUrl, "root", "").baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        try (Connection connection = DriverManager.getConnection(legacyUrl, "root", ""); Statement statement = connection.createStatement()) {
+            try (ResultSet outbox = statement.executeQuery("SELECT id, event_type, status, relay_partition FROM outbox WHERE id = 2")) {
+                assertTrue(outbox.next());
+                assertEquals("PAYMENT", outbox.getString("event_type"));
+                assertEquals("AUTHORIZED", outbox.getString("status"));
+                assertEquals(2, outbox.getInt("relay_partition"));
+            }
+            try (ResultSet sequence = statement.executeQuery("SELECT next_val FROM outbox_seq")) {
+                assertTrue(sequence.next());
+                assertEquals(53, sequence.getLong("next_val"));
+            }
+            statement.execute("INSERT INTO outbox (id, event_type, status, publish_attempts, created_at) VALUES (53, 'PAYMENT', 'IN_FLIGHT', 0, NOW())");
+        }
+    }
+
+    private static String nativeQuery(Class<?> repository, String method, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return repository.getMethod(method, parameterTypes).getAnnotation(Query.class).value();
+    }
+}
@@ -0,0 +1,61 @@
+package com.clinton.authorization_server.service;
+
+import com.clinton.authorization_server.model.AccountContact;
+import com.clinton.authorization_server.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clinton Fernandes
+ */
+@ExtendWith(MockitoExtension.class)
+class AccountContactCacheTest {
+
+    @Mock
+    AccountRepository accountRepository;
+
+    private AccountContactCache accountContactCache;
+
+    @BeforeEach
+    void setUp() {
+        accountContactCache = new AccountContactCache(accountRepository, new SimpleMeterRegistry(), 100, 60000, 60000);
+    }
+
+    @Test
+    public void cachesKnownAndUnknownAccountsUntilInvalidated() {
+        AccountContact sender = new AccountContact(1, "sender", "sender@test");
+        when(accountRepository.findContacts(anyCollection())).thenReturn(List.of(sender));
+
+        assertEquals(Map.of(1, sender), accountContactCache.getContacts(Set.of(1, 2)));
+        assertEquals(Map.of(1, sender), accountContactCache.getContacts(Set.of(1, 2)));
+        verify(accountRepository, times(1)).findContacts(anyCollection());
+
+        accountContactCache.invalidate(2);
+        accountContactCache.getContacts(Set.of(1, 2));
+        verify(accountRepository).findContacts(List.of(2));
+    }
+
+    @Test
+    public void keepsUnknownAccountsOnlyForTheirOwnTtl() {
+        AccountContact sender = new AccountContact(1, "sender", "sender@test");
+        when(accountRepository.findContacts(anyCollection())).thenReturn(List.of(sender));
+        accountContactCache = new AccountContactCache(accountRepository, new SimpleMeterRegistry(), 100, 60000, 0);
+
+        accountContactCache.getContacts(Set.of(1, 2));
+        accountContactCache.getContacts(Set.of(1, 2));
+
+        verify(accountRepository).findContacts(List.of(2));
+    }
+}
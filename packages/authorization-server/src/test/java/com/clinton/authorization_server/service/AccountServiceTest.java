@@ -1,6 +1,7 @@
 package com.clinton.authorization_server.service;
 
 import com.clinton.authorization_server.model.Account;
+import com.clinton.authorization_server.model.Money;
 import com.clinton.authorization_server.repository.AccountRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,7 +11,6 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
 
-import java.math.BigDecimal;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -26,6 +26,9 @@ class AccountServiceTest {
     @Mock
     AccountRepository accountRepository;
 
+    @Mock
+    AccountContactCache accountContactCache;
+
     private AccountService accountService;
     private Account account;
 
@@ -33,9 +36,9 @@ class AccountServiceTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
 
-        account = new Account(1, "test", "savings", new BigDecimal("100"));
+        account = new Account(1, "test", "savings", Money.of("100"));
 
-        accountService = new AccountService(accountRepository);
+        accountService = new AccountService(accountRepository, accountContactCache);
     }
 
     @Test
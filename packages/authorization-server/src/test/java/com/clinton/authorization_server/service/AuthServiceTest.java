@@ -0,0 +1,192 @@
+package com.clinton.authorization_server.service;
+
+import com.clinton.authorization_server.exceptions.AccountNotFoundException;
+import com.clinton.authorization_server.exceptions.BalanceNotSufficientException;
+import com.clinton.authorization_server.model.*;
+import com.clinton.authorization_server.repository.AccountRepository;
+import com.clinton.authorization_server.repository.AuthorizationRepository;
+import com.clinton.authorization_server.repository.OutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clinton Fernandes
+ */
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @Mock
+    AccountContactCache accountContactCache;
+
+    @Mock
+    AuthorizationRepository authorizationRepository;
+
+    @Mock
+    OutboxRepository outboxRepository;
+
+    @Mock
+    FastPathPublisher fastPathPublisher;
+
+    private AuthService authService;
+    private Authorization authorization;
+
+    @BeforeEach
+    void setUp() {
+        authService = new AuthService(accountRepository, accountContactCache, authorizationRepository, outboxRepository, fastPathPublisher, new ObjectMapper().findAndRegisterModules());
+        lenient().when(fastPathPublisher.newPaymentEvent(any(Outbox.class))).thenAnswer((invocation) -> invocation.getArgument(0));
+
+        authorization = new Authorization();
+        authorization.setSenderAccountId(1);
+        authorization.setReceiverAccountId(2);
+        authorization.setAmount(Money.of("40"));
+        authorization.setTimestamp(LocalDateTime.of(2024, 7, 1, 10, 15, 30));
+    }
+
+    @Test
+    public void reservesAndWritesPaymentAndNotificationEvents() throws Exception {
+        when(accountContactCache.getContacts(Set.of(1, 2))).thenReturn(Map.of(1, new AccountContact(1, "sender", "sender@test"), 2, new AccountContact(2, "receiver", "receiver@test")));
+        when(accountRepository.reserveAmount(1, new BigDecimal("40.00"))).thenReturn(1);
+
+        authService.authorizePaymentTransaction(authorization);
+
+        assertEquals(Status.AUTHORIZED, authorization.getOutbox().getStatus());
+        assertEquals(new PaymentEvent(PaymentEvent.SCHEMA_VERSION, 1, 2, Money.of("40"), LocalDateTime.of(2024, 7, 1, 10, 15, 30), new PaymentEvent.Party("sender", "sender@test"), new PaymentEvent.Party("receiver", "receiver@test")), new ObjectMapper().findAndRegisterModules().readValue(authorization.getOutbox().getPayload(), PaymentEvent.class));
+        verify(authorizationRepository).saveAll(List.of(authorization));
+        verify(outboxRepository).saveAll(argThat((List<Outbox> outboxes) -> outboxes.size() == 1 && outboxes.getFirst().getEventType() == EventType.NOTIFICATION && outboxes.getFirst().getPayload().contains("sender@test")));
+        verify(accountRepository, never()).findById(anyInt());
+    }
+
+    @Test
+    public void declinesWhenTheReservationDoesNotFit() {
+        when(accountContactCache.getContacts(Set.of(1, 2))).thenReturn(Map.of(1, new AccountContact(1, "sender", "sender@test"), 2, new AccountContact(2, "receiver", "receiver@test")));
+        when(accountRepository.reserveAmount(1, new BigDecimal("40.00"))).thenReturn(0);
+
+        assertThrows(BalanceNotSufficientException.class, () -> authService.authorizePaymentTransaction(authorization));
+
+        assertEquals(Status.DECLINED, authorization.getOutbox().getStatus());
+        verify(authorizationRepository).saveAll(List.of(authorization));
+        verify(outboxRepository).saveAll(List.of());
+    }
+
+    @Test
+    public void rejectsUnknownReceiverWithoutReserving() {
+        when(accountContactCache.getContacts(Set.of(1, 2))).thenReturn(Map.of(1, new AccountContact(1, "sender", "sender@test")));
+
+        AccountNotFoundException exception = assertThrows(AccountNotFoundException.class, () -> authService.authorizePaymentTransaction(authorization));
+
+        assertEquals("Account with id 2 not found", exception.getMessage());
+        verify(accountRepository, never()).reserveAmount(anyInt(), any(BigDecimal.class));
+        verify(authorizationRepository).saveAll(List.of());
+    }
+
+    @Test
+    public void authorizesABatchWithOneLookupAndPerItemOutcomes() {
+        Authorization declined = new Authorization();
+        declined.setSenderAccountId(2);
+        declined.setReceiverAccountId(1);
+        declined.setAmount(Money.of("500"));
+        Authorization unknown = new Authorization();
+        unknown.setSenderAccountId(3);
+        unknown.setReceiverAccountId(1);
+        unknown.setAmount(Money.of("10"));
+        when(accountContactCache.getContacts(Set.of(1, 2, 3))).thenReturn(Map.of(1, new AccountContact(1, "sender", "sender@test"), 2, new AccountContact(2, "receiver", "receiver@test")));
+        when(accountRepository.reserveAmount(1, new BigDecimal("40.00"))).thenReturn(1);
+        when(accountRepository.reserveAmount(2, new BigDecimal("500.00"))).thenReturn(0);
+
+        List<AuthorizationResult> results = authService.authorizePaymentTransactions(List.of(authorization, declined, unknown));
+
+        assertEquals(List.of(AuthorizationOutcome.AUTHORIZED, AuthorizationOutcome.DECLINED, AuthorizationOutcome.NOT_FOUND), results.stream().map(AuthorizationResult::outcome).toList());
+        assertEquals("Account with id 3 not found", results.get(2).message());
+        verify(accountContactCache).getContacts(Set.of(1, 2, 3));
+        verify(authorizationRepository).saveAll(List.of(authorization, declined));
+        verify(outboxRepository).saveAll(argThat((List<Outbox> outboxes) -> outboxes.size() == 1));
+    }
+
+    @Test
+    public void answersARetriedIdempotencyKeyFromTheRecordedAuthorization() {
+        Authorization recorded = new Authorization();
+        recorded.setId(9L);
+        recorded.setSenderAccountId(1);
+        recorded.setReceiverAccountId(2);
+        recorded.setAmount(Money.of("40.00"));
+        recorded.setOutbox(new Outbox(Status.DECLINED, recorded));
+        when(authorizationRepository.findByIdempotencyKey("key")).thenReturn(Optional.of(recorded));
+        authorization.setIdempotencyKey("key");
+
+        AuthorizationResult result = authService.authorizeIdempotently(authorization);
+
+        assertEquals(new AuthorizationResult(9L, AuthorizationOutcome.DECLINED, new BalanceNotSufficientException().getMessage()), result);
+        verify(accountRepository, never()).reserveAmount(anyInt(), any(BigDecimal.class));
+        verify(authorizationRepository, never()).saveAll(any());
+    }
+
+    @Test
+    public void reservesPaymentsFromOneSenderTogetherAndFallsBackOneByOne() {
+        Authorization second = new Authorization();
+        second.setSenderAccountId(1);
+        second.setReceiverAccountId(2);
+        second.setAmount(Money.of("60"));
+        when(accountContactCache.getContacts(Set.of(1, 2))).thenReturn(Map.of(1, new AccountContact(1, "sender", "sender@test"), 2, new AccountContact(2, "receiver", "receiver@test")));
+        when(accountRepository.reserveAmount(1, new BigDecimal("100.00"))).thenReturn(0);
+        when(accountRepository.reserveAmount(1, new BigDecimal("40.00"))).thenReturn(1);
+        when(accountRepository.reserveAmount(1, new BigDecimal("60.00"))).thenReturn(0);
+
+        List<AuthorizationResult> results = authService.authorizePaymentTransactions(List.of(authorization, second));
+
+        assertEquals(List.of(AuthorizationOutcome.AUTHORIZED, AuthorizationOutcome.DECLINED), results.stream().map(AuthorizationResult::outcome).toList());
+        verify(accountRepository, times(3)).reserveAmount(eq(1), any(BigDecimal.class));
+    }
+
+    @Test
+    public void reservesPaymentsFromOneSenderWithOneUpdateWhenTheSumFits() {
+        Authorization second = new Authorization();
+        second.setSenderAccountId(1);
+        second.setReceiverAccountId(2);
+        second.setAmount(Money.of("60"));
+        when(accountContactCache.getContacts(Set.of(1, 2))).thenReturn(Map.of(1, new AccountContact(1, "sender", "sender@test"), 2, new AccountContact(2, "receiver", "receiver@test")));
+        when(accountRepository.reserveAmount(1, new BigDecimal("100.00"))).thenReturn(1);
+
+        List<AuthorizationResult> results = authService.authorizePaymentTransactions(List.of(authorization, second));
+
+        assertEquals(List.of(AuthorizationOutcome.AUTHORIZED, AuthorizationOutcome.AUTHORIZED), results.stream().map(AuthorizationResult::outcome).toList());
+        verify(accountRepository, times(1)).reserveAmount(eq(1), any(BigDecimal.class));
+        verify(authorizationRepository).saveAll(List.of(authorization, second));
+    }
+
+    @Test
+    public void reservesSendersInAscendingAccountOrder() {
+        Authorization first = new Authorization();
+        first.setSenderAccountId(2);
+        first.setReceiverAccountId(1);
+        first.setAmount(Money.of("10"));
+        when(accountContactCache.getContacts(Set.of(1, 2))).thenReturn(Map.of(1, new AccountContact(1, "sender", "sender@test"), 2, new AccountContact(2, "receiver", "receiver@test")));
+        when(accountRepository.reserveAmount(anyInt(), any(BigDecimal.class))).thenReturn(1);
+
+        authService.authorizePaymentTransactions(List.of(first, authorization));
+
+        InOrder reservations = inOrder(accountRepository);
+        reservations.verify(accountRepository).reserveAmount(1, new BigDecimal("40.00"));
+        reservations.verify(accountRepository).reserveAmount(2, new BigDecimal("10.00"));
+    }
+}
@@ -0,0 +1,187 @@
+package com.clinton.authorization_server.service;
+
+import com.clinton.authorization_server.model.Authorization;
+import com.clinton.authorization_server.model.AuthorizationOutcome;
+import com.clinton.authorization_server.model.AuthorizationResult;
+import com.clinton.authorization_server.model.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clinton Fernandes
+ */
+@ExtendWith(MockitoExtension.class)
+class AuthorizationLanesTest {
+
+    private static final int SENDER = 1;
+
+    @Mock
+    AuthService authService;
+
+    private AuthorizationLanes authorizationLanes;
+
+    private final CountDownLatch busy = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        authorizationLanes = new AuthorizationLanes(authService, new SimpleMeterRegistry(), 2, 10);
+        ReflectionTestUtils.setField(authorizationLanes, "enabled", true);
+        ReflectionTestUtils.setField(authorizationLanes, "maxBatchSize", 100);
+        ReflectionTestUtils.setField(authorizationLanes, "waitTimeoutMs", 10000L);
+        authorizationLanes.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        authorizationLanes.stop();
+    }
+
+    private static Authorization payment(int receiverAccountId) {
+        Authorization authorization = new Authorization();
+        authorization.setSenderAccountId(SENDER);
+        authorization.setReceiverAccountId(receiverAccountId);
+        authorization.setAmount(Money.of("40"));
+        return authorization;
+    }
+
+    private static List<AuthorizationResult> authorized(List<Authorization> authorizations) {
+        return authorizations.stream().map((authorization) -> new AuthorizationResult((long) authorization.getReceiverAccountId(), AuthorizationOutcome.AUTHORIZED, AuthService.AUTHORIZED_MESSAGE)).toList();
+    }
+
+    /**
+     * Holds the lane in its first transaction until {@link #release} counts down.
+     */
+    private List<AuthorizationResult> holdTheLane(List<Authorization> authorizations) throws InterruptedException {
+        busy.countDown();
+        release.await();
+        return authorized(authorizations);
+    }
+
+    private CompletableFuture<AuthorizationResult> authorizeInBackground(Authorization authorization) {
+        return CompletableFuture.supplyAsync(() -> authorizationLanes.authorize(authorization));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void awaitQueued(int count) throws InterruptedException {
+        BlockingQueue<?> lane = ((List<BlockingQueue<?>>) ReflectionTestUtils.getField(authorizationLanes, "lanes")).get(SENDER % 2);
+        while (lane.size() < count) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+
+    @Test
+    public void authorizesOnTheLaneAndAnswersTheRequest() {
+        Authorization authorization = payment(2);
+        AuthorizationResult authorized = new AuthorizationResult(7L, AuthorizationOutcome.AUTHORIZED, AuthService.AUTHORIZED_MESSAGE);
+        when(authService.authorizePaymentTransactions(anyList())).thenAnswer((invocation) -> List.of(authorized));
+
+        assertEquals(authorized, authorizationLanes.authorize(authorization));
+        verify(authService).authorizePaymentTransactions(List.of(authorization));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void authorizesThePaymentsQueuedBehindABusyLaneInOneTransaction() throws Exception {
+        Authorization first = payment(2);
+        List<Authorization> queued = IntStream.range(3, 7).mapToObj(AuthorizationLanesTest::payment).toList();
+        when(authService.authorizePaymentTransactions(anyList())).thenAnswer((invocation) -> this.holdTheLane(invocation.getArgument(0)));
+
+        CompletableFuture<AuthorizationResult> firstResult = this.authorizeInBackground(first);
+        busy.await();
+        List<CompletableFuture<AuthorizationResult>> queuedResults = queued.stream().map(this::authorizeInBackground).toList();
+        this.awaitQueued(queued.size());
+        release.countDown();
+
+        assertEquals(2L, firstResult.get(10, TimeUnit.SECONDS).authorizationId());
+        for (int i = 0; i < queued.size(); i++) {
+            assertEquals((long) queued.get(i).getReceiverAccountId(), queuedResults.get(i).get(10, TimeUnit.SECONDS).authorizationId());
+        }
+        ArgumentCaptor<List<Authorization>> batches = ArgumentCaptor.forClass(List.class);
+        verify(authService, times(2)).authorizePaymentTransactions(batches.capture());
+        assertEquals(List.of(first), batches.getAllValues().get(0));
+        assertEquals(queued.size(), batches.getAllValues().get(1).size());
+        assertTrue(batches.getAllValues().get(1).containsAll(queued));
+    }
+
+    @Test
+    public void failsEveryPaymentInAFailingBatch() throws Exception {
+        List<Authorization> queued = IntStream.range(3, 6).mapToObj(AuthorizationLanesTest::payment).toList();
+        IllegalStateException failure = new IllegalStateException("connection lost");
+        when(authService.authorizePaymentTransactions(anyList())).thenAnswer((invocation) -> this.holdTheLane(invocation.getArgument(0))).thenThrow(failure);
+
+        CompletableFuture<AuthorizationResult> firstResult = this.authorizeInBackground(payment(2));
+        busy.await();
+        List<CompletableFuture<AuthorizationResult>> queuedResults = queued.stream().map(this::authorizeInBackground).toList();
+        this.awaitQueued(queued.size());
+        release.countDown();
+
+        assertEquals(2L, firstResult.get(10, TimeUnit.SECONDS).authorizationId());
+        for (CompletableFuture<AuthorizationResult> queuedResult : queuedResults) {
+            assertSame(failure, assertThrows(ExecutionException.class, () -> queuedResult.get(10, TimeUnit.SECONDS)).getCause());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void failsTheQueueAndStopsRoutingToALaneWhoseWriterDied() throws Exception {
+        List<Authorization> queued = IntStream.range(3, 6).mapToObj(AuthorizationLanesTest::payment).toList();
+        Authorization afterwards = payment(9);
+        StackOverflowError error = new StackOverflowError();
+        when(authService.authorizePaymentTransactions(anyList())).thenAnswer((invocation) -> {
+            busy.countDown();
+            release.await();
+            throw error;
+        }).thenAnswer((invocation) -> authorized(invocation.getArgument(0)));
+
+        CompletableFuture<AuthorizationResult> firstResult = this.authorizeInBackground(payment(2));
+        busy.await();
+        List<CompletableFuture<AuthorizationResult>> queuedResults = queued.stream().map(this::authorizeInBackground).toList();
+        this.awaitQueued(queued.size());
+        release.countDown();
+
+        assertSame(error, assertThrows(ExecutionException.class, () -> firstResult.get(10, TimeUnit.SECONDS)).getCause());
+        for (CompletableFuture<AuthorizationResult> queuedResult : queuedResults) {
+            assertInstanceOf(IllegalStateException.class, assertThrows(ExecutionException.class, () -> queuedResult.get(10, TimeUnit.SECONDS)).getCause());
+        }
+        ((List<Thread>) ReflectionTestUtils.getField(authorizationLanes, "writers")).get(SENDER % 2).join(TimeUnit.SECONDS.toMillis(10));
+        assertEquals(9L, authorizationLanes.authorize(afterwards).authorizationId());
+        verify(authService).authorizePaymentTransactions(List.of(afterwards));
+    }
+
+    @Test
+    public void authorizesOnTheRequestThreadWhenTheLaneDoesNotPickThePaymentUpInTime() throws Exception {
+        ReflectionTestUtils.setField(authorizationLanes, "waitTimeoutMs", 50L);
+        Authorization waiting = payment(3);
+        when(authService.authorizePaymentTransactions(anyList())).thenAnswer((invocation) -> this.holdTheLane(invocation.getArgument(0))).thenAnswer((invocation) -> authorized(invocation.getArgument(0)));
+
+        CompletableFuture<AuthorizationResult> firstResult = this.authorizeInBackground(payment(2));
+        busy.await();
+
+        assertEquals(3L, authorizationLanes.authorize(waiting).authorizationId());
+        release.countDown();
+        assertInstanceOf(IllegalStateException.class, assertThrows(ExecutionException.class, () -> firstResult.get(10, TimeUnit.SECONDS)).getCause());
+        verify(authService).authorizePaymentTransactions(List.of(waiting));
+    }
+}
@@ -0,0 +1,102 @@
+package com.clinton.authorization_server.service;
+
+import com.clinton.authorization_server.exceptions.IdempotencyKeyException;
+import com.clinton.authorization_server.model.Authorization;
+import com.clinton.authorization_server.model.AuthorizationOutcome;
+import com.clinton.authorization_server.model.AuthorizationResult;
+import com.clinton.authorization_server.model.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Clinton Fernandes
+ */
+class IdempotencyCacheTest {
+
+    private static final AuthorizationResult AUTHORIZED = new AuthorizationResult(7L, AuthorizationOutcome.AUTHORIZED, AuthService.AUTHORIZED_MESSAGE);
+
+    private IdempotencyCache idempotencyCache;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyCache = new IdempotencyCache(new SimpleMeterRegistry(), 100, 60000);
+    }
+
+    private static Authorization payment(String amount) {
+        Authorization authorization = new Authorization();
+        authorization.setSenderAccountId(1);
+        authorization.setReceiverAccountId(2);
+        authorization.setAmount(Money.of(amount));
+        return authorization;
+    }
+
+    @Test
+    public void answersRetriesFromTheFirstOutcome() {
+        AtomicInteger runs = new AtomicInteger();
+
+        idempotencyCache.execute("key", payment("40"), () -> {
+            runs.incrementAndGet();
+            return AUTHORIZED;
+        });
+        AuthorizationResult retried = idempotencyCache.execute("key", payment("40.00"), () -> {
+            runs.incrementAndGet();
+            return AUTHORIZED;
+        });
+
+        assertSame(AUTHORIZED, retried);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void concurrentDuplicatesWaitForTheRunningAttempt() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<AuthorizationResult> first = CompletableFuture.supplyAsync(() -> idempotencyCache.execute("key", payment("40"), () -> {
+            runs.incrementAndGet();
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                throw new RuntimeException(exception);
+            }
+            return AUTHORIZED;
+        }));
+        running.await();
+
+        CompletableFuture<AuthorizationResult> duplicate = CompletableFuture.supplyAsync(() -> idempotencyCache.execute("key", payment("40"), () -> {
+            runs.incrementAndGet();
+            return AUTHORIZED;
+        }));
+        release.countDown();
+
+        assertSame(AUTHORIZED, duplicate.get());
+        assertSame(AUTHORIZED, first.get());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void rejectsAKeyReusedForADifferentPayment() {
+        idempotencyCache.execute("key", payment("40"), () -> AUTHORIZED);
+
+        assertThrows(IdempotencyKeyException.class, () -> idempotencyCache.execute("key", payment("41"), () -> AUTHORIZED));
+    }
+
+    @Test
+    public void forgetsAttemptsThatFailedWithoutAnOutcome() {
+        assertThrows(IllegalStateException.class, () -> idempotencyCache.execute("key", payment("40"), () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertSame(AUTHORIZED, idempotencyCache.execute("key", payment("40"), () -> AUTHORIZED));
+    }
+}
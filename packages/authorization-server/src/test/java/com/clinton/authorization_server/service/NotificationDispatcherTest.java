@@ -0,0 +1,91 @@
+package com.clinton.authorization_server.service;
+
+import com.clinton.authorization_server.model.EventType;
+import com.clinton.authorization_server.model.OutboxMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clinton Fernandes
+ */
+@ExtendWith(MockitoExtension.class)
+class NotificationDispatcherTest {
+
+    @Mock
+    OutboxService outboxService;
+
+    @Mock
+    SendNotificationToSES sendNotificationToSES;
+
+    @Mock
+    PartitionCoordinator partitionCoordinator;
+
+    private NotificationDispatcher notificationDispatcher;
+
+    private final List<Integer> claimSizes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        notificationDispatcher = new NotificationDispatcher(outboxService, sendNotificationToSES, Runnable::run, new ObjectMapper(), partitionCoordinator, 3, 1, 1);
+        ReflectionTestUtils.setField(notificationDispatcher, "leaseDurationMs", 1000L);
+    }
+
+    private void ownPartitions(int owned, int total, int maxPerSecond) {
+        ReflectionTestUtils.setField(notificationDispatcher, "maxPerSecond", maxPerSecond);
+        when(partitionCoordinator.getOwnedPartitions()).thenReturn(IntStream.range(0, owned).boxed().toList());
+        when(partitionCoordinator.getTotalPartitions()).thenReturn(total);
+        when(outboxService.claimAuthorizedEvents(eq(EventType.NOTIFICATION), anyList(), anyString(), eq(0L), anyInt(), any())).thenAnswer((invocation) -> {
+            int chunkSize = invocation.getArgument(4);
+            claimSizes.add(chunkSize);
+            return LongStream.range(0, chunkSize).mapToObj((id) -> new OutboxMessage(id, "{\"recipientEmail\":\"a@b.c\",\"recipientName\":\"a\"}")).toList();
+        });
+    }
+
+    private void tick(int seconds) {
+        for (int second = 0; second < seconds; second++) {
+            notificationDispatcher.dispatchNotifications();
+        }
+    }
+
+    @Test
+    public void carriesTheFractionOfAShareAboveOneIntoTheNextSecond() {
+        ownPartitions(6, 16, 14);
+
+        tick(8);
+
+        assertEquals(List.of(5, 5, 5, 6, 5, 5, 5, 6), claimSizes);
+        verify(sendNotificationToSES, times(42)).sendNotification("a@b.c", "a");
+    }
+
+    @Test
+    public void sendsTheConfiguredRateAcrossTheClusterWhenTheShareIsFractional() {
+        ownPartitions(4, 16, 14);
+
+        tick(4);
+
+        assertEquals(List.of(3, 4, 3, 4), claimSizes);
+    }
+
+    @Test
+    public void savesUpAShareBelowOneUntilAWholeSendIsEarned() {
+        ownPartitions(4, 16, 3);
+
+        tick(8);
+
+        assertEquals(List.of(1, 1, 1, 1, 1, 1), claimSizes);
+    }
+}
@@ -0,0 +1,145 @@
+package com.clinton.authorization_server.service;
+
+import com.clinton.authorization_server.model.OutboxMessage;
+import com.clinton.authorization_server.model.PublishResult;
+import com.clinton.authorization_server.model.SQSClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clinton Fernandes
+ */
+@ExtendWith(MockitoExtension.class)
+class SendMessageToSQSTest {
+
+    @Mock
+    SQSClient sqsClient;
+
+    @Mock
+    SqsAsyncClient sqsAsyncClient;
+
+    private SendMessageToSQS sendMessageToSQS;
+
+    @BeforeEach
+    void setUp() {
+        when(sqsClient.getSqsAsyncClient()).thenReturn(sqsAsyncClient);
+        sendMessageToSQS = this.newSender(1);
+    }
+
+    private SendMessageToSQS newSender(int batchAttempts) {
+        SendMessageToSQS sender = new SendMessageToSQS(sqsClient, new SimpleMeterRegistry(), 2, batchAttempts, 1, 1);
+        ReflectionTestUtils.setField(sender, "queueUrl", "queue");
+        return sender;
+    }
+
+    private static List<OutboxMessage> messages(LongStream ids) {
+        return ids.mapToObj((id) -> new OutboxMessage(id, "{\"schemaVersion\":1,\"id\":" + id + "}")).toList();
+    }
+
+    @Test
+    public void publishesThePayloadWithTheOutboxIdAsAttribute() {
+        List<SendMessageBatchRequestEntry> entries = SendMessageToSQS.toBatchEntries(SendMessageToSQS.toEnvelopes(List.of(new OutboxMessage(7L, "{\"schemaVersion\":1}"), new OutboxMessage(8L, null)), 0));
+
+        assertEquals("{\"schemaVersion\":1}", entries.get(0).messageBody());
+        assertEquals("7", entries.get(0).messageAttributes().get(SendMessageToSQS.OUTBOX_ID_ATTRIBUTE).stringValue());
+        assertEquals("8", entries.get(1).messageBody());
+    }
+
+    @Test
+    public void sendsInBatchesOfTenAndReturnsAcceptedIds() throws Exception {
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenAnswer((invocation) -> {
+            SendMessageBatchRequest request = invocation.getArgument(0);
+            List<SendMessageBatchResultEntry> successful = request.entries().stream().map((entry) -> SendMessageBatchResultEntry.builder().id(entry.id()).messageId("m-" + entry.id()).build()).toList();
+            return CompletableFuture.completedFuture(SendMessageBatchResponse.builder().successful(successful).build());
+        });
+
+        PublishResult result = sendMessageToSQS.sendMessageInBatch(messages(LongStream.rangeClosed(1, 25))).get();
+
+        assertEquals(25, result.published().size());
+        assertTrue(result.failed().isEmpty());
+        verify(sqsAsyncClient, times(3)).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    @Test
+    public void leavesOutFailedEntriesAndFailedRequests() throws Exception {
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(SendMessageBatchResponse.builder()
+                        .successful(List.of(SendMessageBatchResultEntry.builder().id("1").messageId("m-1").build()))
+                        .failed(List.of(BatchResultErrorEntry.builder().id("2").code("InternalError").senderFault(false).build()))
+                        .build()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("throttled")));
+
+        PublishResult result = sendMessageToSQS.sendMessageInBatch(messages(LongStream.rangeClosed(1, 12))).get();
+
+        assertEquals(List.of(1L), result.published());
+        assertEquals(Set.of(2L, 11L, 12L), result.failed().keySet());
+    }
+
+    @Test
+    public void retriesOnlyTheFailedEntries() throws Exception {
+        sendMessageToSQS = this.newSender(3);
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(SendMessageBatchResponse.builder()
+                        .successful(List.of(SendMessageBatchResultEntry.builder().id("1").messageId("m-1").build()))
+                        .failed(List.of(BatchResultErrorEntry.builder().id("2").code("InternalError").senderFault(false).build(),
+                                BatchResultErrorEntry.builder().id("3").code("InvalidMessageContents").senderFault(true).build()))
+                        .build()))
+                .thenReturn(CompletableFuture.completedFuture(SendMessageBatchResponse.builder()
+                        .successful(List.of(SendMessageBatchResultEntry.builder().id("2").messageId("m-2").build()))
+                        .build()));
+
+        PublishResult result = sendMessageToSQS.sendMessageInBatch(messages(LongStream.rangeClosed(1, 3))).get();
+
+        ArgumentCaptor<SendMessageBatchRequest> requests = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsAsyncClient, times(2)).sendMessageBatch(requests.capture());
+        assertEquals(List.of("2"), requests.getAllValues().get(1).entries().stream().map(SendMessageBatchRequestEntry::id).toList());
+        assertEquals(List.of(1L, 2L), result.published());
+        assertEquals(Set.of(3L), result.failed().keySet());
+    }
+
+    @Test
+    public void packsRowsIntoOneMessageUpToTheByteLimit() throws Exception {
+        ReflectionTestUtils.setField(sendMessageToSQS, "packingEnabled", true);
+        ReflectionTestUtils.setField(sendMessageToSQS, "maxMessageBytes", 25000);
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenAnswer((invocation) -> {
+            SendMessageBatchRequest request = invocation.getArgument(0);
+            List<SendMessageBatchResultEntry> successful = request.entries().stream().map((entry) -> SendMessageBatchResultEntry.builder().id(entry.id()).messageId("m-" + entry.id()).build()).toList();
+            return CompletableFuture.completedFuture(SendMessageBatchResponse.builder().successful(successful).build());
+        });
+
+        PublishResult result = sendMessageToSQS.sendMessageInBatch(messages(LongStream.rangeClosed(1, 25))).get();
+
+        ArgumentCaptor<SendMessageBatchRequest> request = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsAsyncClient).sendMessageBatch(request.capture());
+        assertEquals(1, request.getValue().entries().size());
+        assertTrue(request.getValue().entries().getFirst().messageBody().startsWith("{\"schemaVersion\":1,\"ids\":[1,2,3,"));
+        assertEquals(25, result.published().size());
+    }
+
+    @Test
+    public void startsANewEnvelopeWhenTheNextRowDoesNotFit() {
+        List<SendMessageToSQS.Envelope> envelopes = SendMessageToSQS.toEnvelopes(messages(LongStream.rangeClosed(1, 5)), 100);
+
+        assertEquals(List.of(2, 2, 1), envelopes.stream().map((envelope) -> envelope.messages().size()).toList());
+        assertEquals("{\"schemaVersion\":1,\"ids\":[1,2],\"events\":[{\"schemaVersion\":1,\"id\":1},{\"schemaVersion\":1,\"id\":2}]}", envelopes.getFirst().body());
+        assertEquals("{\"schemaVersion\":1,\"id\":5}", envelopes.getLast().body());
+    }
+}
@@ -7,6 +7,10 @@ const getAccountSQL: string = 'SELECT * FROM account WHERE account_number = ?';
 const creditAccountSQL: string = 'UPDATE account SET account_balance = ? WHERE account_number = ?';
 const debitAccountSQL: string = 'UPDATE account SET account_balance = ?, reserved_amount = ? WHERE account_number = ?';
 const setStatus: string = 'UPDATE outbox set status = ? WHERE id = ?';
+const claimClearanceSQL: string = "UPDATE outbox SET status = 'COMPLETED' WHERE id = ? AND status <> 'COMPLETED'";
+const getBalanceSQL: string = 'SELECT account_balance FROM account WHERE account_number = ?';
+const applyCreditSQL: string = 'UPDATE account SET account_balance = account_balance + ? WHERE account_number = ?';
+const applyDebitSQL: string = 'UPDATE account SET account_balance = account_balance - ?, reserved_amount = reserved_amount - ? WHERE account_number = ?';
 
 const dbConfig: PoolOptions = {
     host: process.env.DB_HOST,
@@ -20,7 +24,7 @@ const persistenceStore = new DynamoDBPersistenceLayer({
 });
 const idempotencyConfig = new IdempotencyConfig({
     throwOnNoIdempotencyKey: true,
-    eventKeyJmesPath: 'Records[0].body'
+    eventKeyJmesPath: 'Records[0].[messageAttributes.outboxId.stringValue, body]'
 });
 
 interface AuthRecord {
@@ -32,6 +36,35 @@ interface AuthRecord {
     outbox_id: number;
 }
 
+const PAYMENT_EVENT_SCHEMA_VERSION: number = 1;
+const PACKED_ENVELOPE_SCHEMA_VERSION: number = 1;
+
+interface Party {
+    name: string;
+    email: string;
+}
+
+interface PaymentEvent {
+    schemaVersion: number;
+    senderAccountId: number;
+    receiverAccountId: number;
+    amount: number;
+    timestamp: string;
+    sender: Party;
+    receiver: Party;
+}
+
+interface PackedEnvelope {
+    schemaVersion: number;
+    ids: number[];
+    events: (PaymentEvent | null)[];
+}
+
+interface ClearanceItem {
+    outboxId: string;
+    paymentEvent: PaymentEvent | null;
+}
+
 interface Account {
     account_number: number;
     account_balance: number;
@@ -41,5 +74,5 @@ interface Account {
     reserved_amount: number;
 }
 
-export { Account, AuthRecord, creditAccountSQL, dbConfig, debitAccountSQL, getAccountSQL, getTransactionSQL, idempotencyConfig, persistenceStore, setStatus };
+export { Account, AuthRecord, ClearanceItem, PACKED_ENVELOPE_SCHEMA_VERSION, PAYMENT_EVENT_SCHEMA_VERSION, PackedEnvelope, PaymentEvent, applyCreditSQL, applyDebitSQL, claimClearanceSQL, creditAccountSQL, dbConfig, debitAccountSQL, getAccountSQL, getBalanceSQL, getTransactionSQL, idempotencyConfig, persistenceStore, setStatus };
 
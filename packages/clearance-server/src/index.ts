@@ -6,7 +6,7 @@ import { SQSClient } from "@aws-sdk/client-sqs";
 import { Context, Handler, SQSEvent } from 'aws-lambda';
 import { Subsegment } from 'aws-xray-sdk-core';
 import { Pool, PoolConnection, createPool } from 'mysql2/promise';
-import { AuthRecord, dbConfig, idempotencyConfig, persistenceStore, } from './config';
+import { AuthRecord, ClearanceItem, dbConfig, idempotencyConfig, persistenceStore, } from './config';
 import { PaymentService } from './service';
 
 let pool: Pool | null = null;
@@ -60,21 +60,42 @@ export const handler: Handler = makeIdempotent(
         const record = event.Records[0];
 
         try {
-            const outboxId = record.body;
-            logger.info(`Starting processing of ${record.messageId}`)
+            const items: ClearanceItem[] = paymentService.parseMessage(record.body, record.messageAttributes.outboxId?.stringValue);
+            logger.info(`Starting processing of ${record.messageId} with ${items.length} payments`)
 
             const dbPool: Pool = getPool();
             dbConnection = await dbPool.getConnection();
             await dbConnection.beginTransaction();
 
-            const authRecord: AuthRecord = await paymentService.getAuthRecord(dbConnection, outboxId);
-
-            const [receiverEmail, senderEmail, senderName, accountBalance]: string[] = await paymentService.clearPayment(dbConnection, authRecord);
-
-            await paymentService.sendEmail(sesClient, receiverEmail, senderEmail, senderName, accountBalance);
+            const emails: string[][] = [];
+            for (const { outboxId, paymentEvent } of items) {
+                if (!await paymentService.claimClearance(dbConnection, outboxId)) {
+                    logger.info(`Outbox row ${outboxId} is already cleared, skipping it`);
+                    continue;
+                }
+                if (paymentEvent) {
+                    const accountBalance: string = await paymentService.clearPaymentEvent(dbConnection, outboxId, paymentEvent);
+
+                    emails.push([paymentEvent.receiver.email, paymentEvent.sender.email, paymentEvent.sender.name, accountBalance]);
+                } else {
+                    const authRecord: AuthRecord = await paymentService.getAuthRecord(dbConnection, outboxId);
+
+                    emails.push(await paymentService.clearPayment(dbConnection, authRecord));
+                }
+            }
 
             await dbConnection.commit();
 
+            // Emails only go out once the whole message is committed; a failed send is logged, not retried, since
+            // redelivering the message would not clear (or email) the committed payments again
+            for (const [receiverEmail, senderEmail, senderName, accountBalance] of emails) {
+                try {
+                    await paymentService.sendEmail(sesClient, receiverEmail, senderEmail, senderName, accountBalance);
+                } catch (error: unknown) {
+                    logger.error(`Sending the clearance email to ${senderEmail} failed`, { error });
+                }
+            }
+
             await paymentService.deleteMessage(record.receiptHandle, process.env.POLLING_URL!, sqsClient);
 
             logger.info(`Completed processing of ${record.messageId}`);
@@ -3,8 +3,8 @@ import { Tracer } from '@aws-lambda-powertools/tracer';
 import { SESClient, SendEmailCommand, SendEmailCommandInput } from '@aws-sdk/client-ses';
 import { DeleteMessageCommand, SQSClient } from '@aws-sdk/client-sqs';
 import { Subsegment } from 'aws-xray-sdk-core';
-import { FieldPacket, PoolConnection, RowDataPacket } from 'mysql2/promise';
-import { Account, AuthRecord, creditAccountSQL, debitAccountSQL, getAccountSQL, getTransactionSQL, setStatus } from './config';
+import { FieldPacket, PoolConnection, ResultSetHeader, RowDataPacket } from 'mysql2/promise';
+import { Account, AuthRecord, ClearanceItem, PACKED_ENVELOPE_SCHEMA_VERSION, PAYMENT_EVENT_SCHEMA_VERSION, PackedEnvelope, PaymentEvent, applyCreditSQL, applyDebitSQL, claimClearanceSQL, creditAccountSQL, debitAccountSQL, getAccountSQL, getBalanceSQL, getTransactionSQL, setStatus } from './config';
 
 export class PaymentService {
 
@@ -71,11 +71,6 @@ export class PaymentService {
                 [receiverAccountBalance, receiver.account_number]
             );
 
-            await dbConnection.execute(
-                setStatus,
-                ['COMPLETED', authRecord.outbox_id]
-            );
-
             this.logger.info('Clearance successful!');
 
             if (this.parentSubsegment && subsegment) {
@@ -99,6 +94,94 @@ export class PaymentService {
         }
     }
 
+    /**
+     * Splits a message into the outbox rows it carries: a packed envelope lists several, a single payload or a bare
+     * outbox id one. Rows without a payload come back with a null event and are cleared through the auth table.
+     */
+    public parseMessage(body: string, outboxIdAttribute: string | undefined): ClearanceItem[] {
+        if (!body.startsWith('{')) {
+            return [{ outboxId: outboxIdAttribute ?? body, paymentEvent: null }];
+        }
+        const parsed = JSON.parse(body);
+        if (Array.isArray(parsed.ids)) {
+            const envelope = parsed as PackedEnvelope;
+            if (envelope.schemaVersion !== PACKED_ENVELOPE_SCHEMA_VERSION) {
+                throw new Error(`Unsupported envelope schema version: ${envelope.schemaVersion}`);
+            }
+            return envelope.ids.map((outboxId: number, i: number) => ({ outboxId: String(outboxId), paymentEvent: envelope.events[i] ? this.checkVersion(envelope.events[i]!) : null }));
+        }
+        return [{ outboxId: outboxIdAttribute!, paymentEvent: this.checkVersion(parsed as PaymentEvent) }];
+    }
+
+    private checkVersion(paymentEvent: PaymentEvent): PaymentEvent {
+        if (paymentEvent.schemaVersion !== PAYMENT_EVENT_SCHEMA_VERSION) {
+            throw new Error(`Unsupported payment event schema version: ${paymentEvent.schemaVersion}`);
+        }
+        return paymentEvent;
+    }
+
+    /**
+     * Marks the outbox row COMPLETED as the first statement of its clearance, in the same transaction. A row that
+     * comes back after a lease expiry or a retried entry, possibly packed with other rows this time, is already
+     * COMPLETED (or archived) and is not cleared again.
+     *
+     * @returns false when the row was already cleared and has to be skipped
+     */
+    public async claimClearance(dbConnection: PoolConnection, outboxId: string): Promise<boolean> {
+        const [result]: [ResultSetHeader, FieldPacket[]] = await dbConnection.execute<ResultSetHeader>(claimClearanceSQL, [outboxId]);
+        return result.affectedRows === 1;
+    }
+
+    /**
+     * Clears a payment from its event payload: the balances are moved with relative updates, so neither the auth row
+     * nor the accounts are read first; only the sender's new balance is read back for the email. Each update has to
+     * hit exactly one row, so a deleted or wrong account fails the clearance and the transaction rolls back instead
+     * of debiting the sender with nobody credited.
+     */
+    public async clearPaymentEvent(dbConnection: PoolConnection, outboxId: string, paymentEvent: PaymentEvent): Promise<string> {
+        const subsegment: Subsegment = this.parentSubsegment!.addNewSubsegment('### ClearPaymentEvent');
+        this.tracer!.setSegment(subsegment);
+        try {
+            this.logger.info('Clearance started');
+
+            await this.updateOne(dbConnection, applyDebitSQL, [paymentEvent.amount, paymentEvent.amount, paymentEvent.senderAccountId], `debit of account ${paymentEvent.senderAccountId}`);
+
+            await this.updateOne(dbConnection, applyCreditSQL, [paymentEvent.amount, paymentEvent.receiverAccountId], `credit of account ${paymentEvent.receiverAccountId}`);
+
+            const [rows]: [RowDataPacket[], FieldPacket[]] = await dbConnection.execute(
+                getBalanceSQL,
+                [paymentEvent.senderAccountId]
+            );
+
+            if (rows.length === 0) {
+                throw new Error(`No account found with id: ${paymentEvent.senderAccountId}`);
+            }
+
+            this.logger.info('Clearance successful!');
+
+            return String(rows[0].account_balance);
+        } catch (error: unknown) {
+            await dbConnection.execute(
+                setStatus,
+                ['PENDING', outboxId]
+            );
+
+            throw error;
+        } finally {
+            if (this.parentSubsegment && subsegment) {
+                subsegment.close();
+                this.tracer!.setSegment(this.parentSubsegment);
+            }
+        }
+    }
+
+    private async updateOne(dbConnection: PoolConnection, sql: string, values: (string | number)[], what: string): Promise<void> {
+        const [result]: [ResultSetHeader, FieldPacket[]] = await dbConnection.execute<ResultSetHeader>(sql, values);
+        if (result.affectedRows !== 1) {
+            throw new Error(`Expected the ${what} to update 1 row, updated ${result.affectedRows}`);
+        }
+    }
+
     public async getAccount(dbConnection: PoolConnection, accountNumbers: number[]): Promise<Account[]> {
         const subsegment: Subsegment = this.parentSubsegment!.addNewSubsegment('### Account');
         this.tracer!.setSegment(subsegment);